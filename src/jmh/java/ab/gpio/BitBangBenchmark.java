@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2025 Aleksei Balan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ab.gpio;
+
+import ab.gpio.driver.BitBang;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Max7219 frame of 8 rows of 4 modules with the Max7219 timing, as a compiled program
+ * and as the per bit loop with fixed spins the drivers had before. Pin writes cost writeNanos, like a syscall.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BitBangBenchmark {
+  private static final int CLK = 1;
+  private static final int DIN = 2;
+  @Param({"0", "100", "1000"})
+  private int writeNanos;
+  private final short[] row = {0x1A5, 0x1A5, 0x1A5, 0x1A5};
+  private Pin cs;
+  private PinGroup group;
+  private BitBang bus;
+
+  private static class SlowPin extends TestPin {
+    private final int nanos;
+
+    SlowPin(int nanos) {
+      this.nanos = nanos;
+    }
+
+    @Override
+    public void set(boolean v) {
+      sleep(nanos);
+      super.set(v);
+    }
+  }
+
+  @Setup
+  public void setup() {
+    cs = new SlowPin(writeNanos).open();
+    group = Pin.group(new SlowPin(writeNanos).open(), new SlowPin(writeNanos).open());
+    bus = new BitBang(new SlowPin(writeNanos), new SlowPin(writeNanos), new SlowPin(writeNanos), 16, false, false);
+    bus.setTiming(Max7219.T_CSS_NS, Math.max(Max7219.T_DS_NS, Max7219.T_CL_NS),
+        Math.max(Max7219.T_DH_NS, Max7219.T_CH_NS), Max7219.T_CSH_NS, Math.max(Max7219.T_CSW_NS, Max7219.T_LDCK_NS));
+    bus.open();
+  }
+
+  @TearDown
+  public void tearDown() {
+    bus.close();
+  }
+
+  @Benchmark
+  public void compiled() {
+    for (int y = 0; y < 8; y++) {
+      bus.select();
+      for (short d : row) bus.write(d);
+      bus.deselect();
+    }
+    bus.run();
+  }
+
+  private static void sleep(int ns) {
+    long time = System.nanoTime() + ns;
+    while (System.nanoTime() <= time) ;
+  }
+
+  @Benchmark
+  public void handRolled() {
+    for (int y = 0; y < 8; y++) {
+      group.set(CLK, 0);
+      cs.set(false);
+      sleep(Max7219.T_CSS_NS);
+      for (short d : row) {
+        for (int i = 0; i < 16; i++) {
+          group.set(CLK | DIN, d < 0 ? DIN : 0);
+          sleep(Math.max(Max7219.T_DS_NS, Max7219.T_CL_NS));
+          group.set(CLK, CLK);
+          sleep(Math.max(Max7219.T_DH_NS, Max7219.T_CH_NS));
+          d <<= 1;
+        }
+      }
+      group.set(CLK, 0);
+      sleep(Max7219.T_CSH_NS);
+      cs.set(true);
+      sleep(Math.max(Max7219.T_CSW_NS, Max7219.T_LDCK_NS));
+    }
+  }
+
+}
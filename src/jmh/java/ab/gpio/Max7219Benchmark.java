@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2025 Aleksei Balan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ab.gpio;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of a full frame for chains of modules, the image alternates so every row is sent.
+ * Includes the bus timing spins.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class Max7219Benchmark {
+  @Param({"4x1", "4x2", "8x2"})
+  private String grid;
+  private Max7219 max7219;
+  private String on;
+  private String off;
+  private boolean odd;
+
+  @Setup
+  public void setup() {
+    String[] size = grid.split("x");
+    int columns = Integer.parseInt(size[0]);
+    max7219 = new Max7219(new TestPin(), new TestPin(), new TestPin(), columns, Integer.parseInt(size[1])).open();
+    on = "####....".repeat(columns);
+    off = "........".repeat(columns);
+  }
+
+  @TearDown
+  public void tearDown() {
+    max7219.close();
+  }
+
+  @Benchmark
+  public void update() {
+    odd = !odd;
+    for (int y = 0; y < max7219.getSize().height; y++) max7219.print(0, y, odd ? on : off, 1);
+    max7219.update();
+  }
+
+}
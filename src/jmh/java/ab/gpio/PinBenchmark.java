@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2025 Aleksei Balan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ab.gpio;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dispatch overhead of Pin and PinGroup on TestPin, which only counts the writes.
+ * pinsSet and groupSet write the same values to 8 lines, pin by pin as before PinGroup and through the group.
+ * On a chip every line write is a kernel call, the group skips the lines that keep their value.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PinBenchmark {
+  private Pin pin;
+  private Pin[] pins;
+  private PinGroup group;
+  private boolean value;
+  private int values;
+
+  @Setup
+  public void setup() {
+    pin = new TestPin().open();
+    pins = new Pin[8];
+    for (int i = 0; i < pins.length; i++) pins[i] = new TestPin().open();
+    group = Pin.group(pins);
+  }
+
+  @Benchmark
+  public void set() {
+    pin.set(value = !value);
+  }
+
+  @Benchmark
+  public boolean get() {
+    return pin.get();
+  }
+
+  @Benchmark
+  public void pinsSet() {
+    int values = this.values += 0x11;
+    for (int i = 0; i < pins.length; i++) pins[i].set((values >>> i & 1) != 0);
+  }
+
+  @Benchmark
+  public void groupSet() {
+    group.set(values += 0x11);
+  }
+
+}
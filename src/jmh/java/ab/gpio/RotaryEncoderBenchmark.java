@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2025 Aleksei Balan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ab.gpio;
+
+import ab.gpio.driver.BusyRunner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scan of an idle encoder and of an encoder turning one quarter step per scan.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RotaryEncoderBenchmark {
+  private static final int[] GRAY = {0b11, 0b01, 0b00, 0b10};
+  private TestPin clk;
+  private TestPin dt;
+  private RotaryEncoder encoder;
+  private int i;
+
+  @Setup
+  public void setup() {
+    clk = new TestPin(new int[1], true);
+    dt = new TestPin(new int[1], true);
+    TestPin sw = new TestPin(new int[1], true);
+    clk.value = true;
+    dt.value = true;
+    sw.value = true;
+    // the runner is never opened, run() is called by the benchmark thread
+    encoder = new RotaryEncoder(clk, dt, sw, new BusyRunner()).open();
+  }
+
+  @TearDown
+  public void tearDown() {
+    encoder.close();
+  }
+
+  @Benchmark
+  public void idle() {
+    encoder.run();
+  }
+
+  @Benchmark
+  public void turn() {
+    int state = GRAY[i++ & 3];
+    clk.value = (state & 2) != 0;
+    dt.value = (state & 1) != 0;
+    encoder.run();
+  }
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2025 Aleksei Balan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ab.gpio;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Frame assembly on the caller side and the refresh that sends it. Refresh includes the bus timing spins,
+ * the driver is opened without its refresh thread and the benchmark thread sends the frames.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class Tm1638Benchmark {
+  private Tm1638 tm1638;
+  private char c;
+  private int frame;
+
+  @Setup
+  public void setup() {
+    tm1638 = new Tm1638(new TestPin(), new TestPin(), new TestPin()).open(false);
+  }
+
+  @TearDown
+  public void tearDown() {
+    tm1638.close();
+  }
+
+  @Benchmark
+  public int to7() {
+    c = c == 'z' ? ' ' : (char) (c + 1);
+    return Tm1638.to7(c);
+  }
+
+  @Benchmark
+  public void print() {
+    tm1638.print(0, 0, "12.345678", 1);
+    tm1638.print(0, -1, "01011010", 1);
+  }
+
+  @Benchmark
+  public void frame() {
+    print();
+    tm1638.update();
+  }
+
+  @Benchmark
+  public void refresh() {
+    tm1638.print(0, 0, (frame++ & 1) == 0 ? "12.345678" : "87654.321", 1);
+    tm1638.update();
+    tm1638.refresh(true, false);
+  }
+
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2025 Aleksei Balan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ab.gpio.driver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One busy loop iteration with runnables that only count their runs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BusyRunnerBenchmark {
+  @Param({"1", "10", "100"})
+  private int runnables;
+  @Param({"false", "true"})
+  private boolean statistics;
+  private BusyRunner runner;
+
+  private static class Counter implements BusyRunnable {
+    long runs;
+
+    @Override
+    public void run() {
+      runs++;
+    }
+
+    @Override
+    public Counter open() {
+      return this;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+
+  @Setup
+  public void setup() {
+    // the runner is never opened, the loop is run by the benchmark thread
+    runner = new BusyRunner();
+    for (int i = 0; i < runnables; i++) runner.add(new Counter());
+    runner.setStatistics(statistics);
+  }
+
+  @Benchmark
+  public void loop() {
+    runner.loop(0);
+  }
+
+}
@@ -18,6 +18,8 @@
 package ab.gpio;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -27,19 +29,58 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Board detection by /proc/device-tree/compatible and board profiles. The compatible list is read once.
+ * A board profile is a properties resource /ab/gpio/board/{profile}.properties, pins are "chip:offset".
+ * Compatible strings are mapped to profiles by /ab/gpio/board/compatible.properties, boards with the same header
+ * share one profile. A compatible string without mapping is the profile name itself.
+ */
 public class GpioSystem {
+  public static final Path DEVICETREE_COMPATIBLE = Paths.get("/proc/device-tree/compatible");
+  private static final String PROFILE_RESOURCE = "/ab/gpio/board/%s.properties";
+  private static final Properties PROFILE_NAMES = loadResource(String.format(PROFILE_RESOURCE, "compatible"))
+      .orElseGet(Properties::new);
+  private static volatile Path devicetree = DEVICETREE_COMPATIBLE;
+  private static volatile Set<String> compatible;
+  private static final Map<String, Optional<Properties>> profiles = new ConcurrentHashMap<>();
+
+  /**
+   * Reads the compatible list, uncached.
+   */
   public static List<String> devicetreeCompatible() {
-    Path path = Paths.get("/proc/device-tree/compatible");
     try {
-      return Arrays.asList(Files.readString(path).split("\0"));
+      return Arrays.asList(Files.readString(devicetree).split("\0"));
     } catch (IOException e) {
       return Collections.emptyList();
     }
   }
 
+  /**
+   * @return compatible strings of the board, most specific first, read on the first call
+   */
+  public static Set<String> getCompatible() {
+    Set<String> compatible = GpioSystem.compatible;
+    if (compatible == null) {
+      compatible = Collections.unmodifiableSet(new LinkedHashSet<>(devicetreeCompatible()));
+      GpioSystem.compatible = compatible;
+    }
+    return compatible;
+  }
+
+  /**
+   * Reads the compatible list from other file, for tests and chroot. Clears the cached list.
+   */
+  public static void setDevicetree(Path compatible) {
+    devicetree = compatible;
+    GpioSystem.compatible = null;
+  }
+
   /**
    * Gets the item corresponding to the device name. Used for hardware dependent objects - pins numbers, devices.
    * Starts search from the first element of the list. Returns default item if device name not found.
@@ -48,7 +89,7 @@ public class GpioSystem {
    * @param defaultItem default item
    */
   public static <T> T getByDevice(Collection<String> deviceNames, Collection<T> items, T defaultItem) {
-    Set<String> set = new LinkedHashSet<>(devicetreeCompatible());
+    Set<String> set = getCompatible();
     Iterator<T> itemsIterator = items.iterator();
     for (String deviceName : deviceNames) {
       T item = itemsIterator.next();
@@ -58,4 +99,63 @@ public class GpioSystem {
     return defaultItem;
   }
 
+  /**
+   * Registers a profile, it takes precedence over the classpath resource.
+   */
+  public static void register(String compatible, Properties profile) {
+    profiles.put(compatible, Optional.of(profile));
+  }
+
+  /**
+   * Removes a registered profile, the classpath resource is used again.
+   */
+  public static void unregister(String compatible) {
+    profiles.remove(compatible);
+  }
+
+  /**
+   * @return the profile of compatible string, loaded from classpath on the first call, null if there is none
+   */
+  public static Properties getProfile(String compatible) {
+    return profiles.computeIfAbsent(compatible, GpioSystem::loadProfile).orElse(null);
+  }
+
+  private static Optional<Properties> loadProfile(String compatible) {
+    return loadResource(String.format(PROFILE_RESOURCE, PROFILE_NAMES.getProperty(compatible, compatible)));
+  }
+
+  private static Optional<Properties> loadResource(String name) {
+    try (InputStream stream = GpioSystem.class.getResourceAsStream(name)) {
+      if (stream == null) return Optional.empty();
+      Properties profile = new Properties();
+      profile.load(stream);
+      return Optional.of(profile);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * @return the profile of the most specific compatible string that has one, null if the board is unknown
+   */
+  public static Properties getProfile() {
+    for (String s : getCompatible()) {
+      Properties profile = getProfile(s);
+      if (profile != null) return profile;
+    }
+    return null;
+  }
+
+  /**
+   * @param name pin name in the board profile
+   * @return new pin, not opened
+   */
+  public static Pin getPin(String name) {
+    Properties profile = getProfile();
+    String pin = profile == null ? null : profile.getProperty(name);
+    if (pin == null) throw new IllegalArgumentException("pin " + name + " on board " + getCompatible());
+    String[] s = pin.split(":");
+    return new Pin(Integer.parseInt(s[0].trim()), Integer.parseInt(s[1].trim()));
+  }
+
 }
@@ -17,9 +17,16 @@
 
 package ab.gpio;
 
+import ab.gpio.driver.BitBang;
+import ab.gpio.driver.BitBangSpi;
+import ab.gpio.driver.LatencyRecorder;
+import ab.gpio.driver.Spi;
+import ab.gpio.driver.SpiDev;
 import ab.tui.Tui;
 
 import java.awt.Dimension;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.function.Consumer;
 
 public class Max7219 implements Tui {
@@ -33,22 +40,51 @@ public class Max7219 implements Tui {
   public static final int T_DH_NS = 0;
   public static final int T_LDCK_NS = 50;
   public static final int T_CSW_NS = 50;
-  private final Pin din;
-  private final Pin cs;
-  private final Pin clk;
+  private final Spi spi;
+  private final ByteBuffer frame; // rows of 16 bit commands to the chain, one message per row
+  private final int columns;
+  private final int modules;
   private final boolean[][] image;
+  private final short[][] sent; // rows as last written to modules
+  private final short[] data;
+  private final short[] command;
+  private final LatencyRecorder latency = new LatencyRecorder();
+  private long bits;
   private boolean open;
 
   public Max7219(Pin din, Pin cs, Pin clk) {
-    this.din = din;
-    this.cs = cs;
-    this.clk = clk;
-    this.image = new boolean[8][32];
+    this(din, cs, clk, 4, 1);
+  }
+
+  /**
+   * Daisy chain of modules arranged in a grid. Modules are numbered left to right, top to bottom,
+   * module 0 is the last one in the chain, the farthest from the DIN input.
+   * @param columns modules in a row
+   * @param rows rows of modules
+   */
+  public Max7219(Pin din, Pin cs, Pin clk, int columns, int rows) {
+    this(new BitBangSpi(new BitBang(cs, clk, din, 8, false, false).setTiming(T_CSS_NS, Math.max(T_DS_NS, T_CL_NS),
+        Math.max(T_DH_NS, T_CH_NS), T_CSH_NS, Math.max(T_CSW_NS, T_LDCK_NS))), columns, rows);
+  }
+
+  /**
+   * Modules on SPI, for example {@link SpiDev}.
+   */
+  public Max7219(Spi spi, int columns, int rows) {
+    if (columns <= 0 || rows <= 0) throw new IllegalArgumentException("grid " + columns + "x" + rows);
+    this.spi = spi;
+    this.frame = ByteBuffer.allocateDirect(8 * columns * rows * 2);
+    this.columns = columns;
+    this.modules = columns * rows;
+    this.image = new boolean[rows * 8][columns * 8];
+    this.sent = new short[8][modules];
+    this.data = new short[modules];
+    this.command = new short[modules];
   }
 
   @Override
   public Dimension getSize() {
-    return new Dimension(32, 8);
+    return new Dimension(image[0].length, image.length);
   }
 
   /**
@@ -60,48 +96,73 @@ public class Max7219 implements Tui {
     for (char c : s.toCharArray()) image[y][x++] = (c & 1) > 0;
   }
 
+  /**
+   * Writes the rows that changed since last update, the modules with unchanged row get no-op.
+   */
   @Override
-  public void update() {
-    short[] data = new short[4];
+  public synchronized void update() {
+    long nanoTime = System.nanoTime();
+    frame.clear();
     for (int y = 0; y < 8; y++) {
-      for (int i = 0; i < 4; i++) {
+      boolean changed = false;
+      for (int i = 0; i < modules; i++) {
+        boolean[] line = image[i / columns * 8 + y];
+        int x0 = i % columns * 8;
         short d = (short) (y + 1 << 8);
         for (int x = 0; x < 8; x++) {
-          if (image[y][i * 8 + x]) d |= 0x80 >> x;
+          if (line[x0 + x]) d |= 0x80 >> x;
+        }
+        if (d == sent[y][i]) {
+          data[i] = 0; // no-op register
+        } else {
+          data[i] = d;
+          sent[y][i] = d;
+          changed = true;
         }
-        data[i] = d;
       }
-      write(data);
+      if (changed) frame(data);
     }
+    if (frame.position() > 0) send();
+    latency.record(System.nanoTime() - nanoTime);
   }
 
-  protected void writeAll(int data) {
-    write(new short[]{(short) data, (short) data, (short) data, (short) data});
+  /**
+   * @return update() times
+   */
+  public LatencyRecorder getLatency() {
+    return latency;
+  }
+
+  /**
+   * @return number of bits clocked to the chain since open
+   */
+  public synchronized long getBitCount() {
+    return bits;
+  }
+
+  synchronized protected void writeAll(int data) {
+    Arrays.fill(command, (short) data);
+    write(command);
   }
 
   synchronized protected void write(short[] data) {
+    frame.clear();
+    frame(data);
+    send();
+  }
+
+  /**
+   * Adds a row of commands to the frame buffer.
+   */
+  private void frame(short[] data) {
     if (!open) throw new IllegalStateException("closed");
-    clk.set(false);
-    cs.set(false);
-    sleep(T_CSS_NS);
-    for (short d : data) {
-      for (int i = 0; i < 16; i++) {
-        din.set(d < 0);
-        sleep(Math.max(T_DS_NS, T_CL_NS));
-        clk.set(true);
-        sleep(Math.max(T_DH_NS, T_CH_NS));
-        clk.set(false);
-        d <<= 1;
-      }
-    }
-    sleep(T_CSH_NS);
-    cs.set(true);
-    sleep(Math.max(T_CSW_NS, T_LDCK_NS));
+    for (short d : data) frame.putShort(d);
+    bits += data.length * 16;
   }
 
-  protected void sleep(int ns) {
-    long time = System.nanoTime() + ns;
-    while (System.nanoTime() <= time) ;
+  private void send() {
+    frame.flip();
+    spi.write(frame, modules * 2);
   }
 
   /**
@@ -120,15 +181,15 @@ public class Max7219 implements Tui {
   public Max7219 open() {
     if (open) throw new IllegalStateException("not closed");
     open = true;
-    din.open();
-    cs.open();
-    clk.open();
+    bits = 0;
+    spi.open();
     writeAll(0x0C00); // screen off
     writeAll(0x0F00); // test off
     setBrightness(0); // brightness min
     writeAll(0x0900); // no decode
     writeAll(0x0B07); // all 8 digits/lines
     for (byte i = 1; i <= 8; i++) writeAll(0x100 * i);
+    for (int y = 0; y < 8; y++) Arrays.fill(sent[y], (short) (y + 1 << 8));
     writeAll(0x0C01); // screen on
     return this;
   }
@@ -137,20 +198,19 @@ public class Max7219 implements Tui {
   public void close() {
     if (open) writeAll(0x0C00); // screen off
     open = false;
-    din.close();
-    cs.close();
-    clk.close();
+    spi.close();
   }
 
   public static void main(String[] args) {
-    if (args.length != 6) {
+    if (args.length != 6 && args.length != 2) {
       System.out.println("java -cp .jar ab.gpio.Max7219 0 10 0 9 0 11");
+      System.out.println("java -cp .jar ab.gpio.Max7219 0 0 # /dev/spidev0.0");
       System.exit(1);
     }
-    Pin din = new Pin(Integer.parseInt(args[0]), Integer.parseInt(args[1]));
-    Pin cs = new Pin(Integer.parseInt(args[2]), Integer.parseInt(args[3]));
-    Pin clk = new Pin(Integer.parseInt(args[4]), Integer.parseInt(args[5]));
-    try (Max7219 max7219 = new Max7219(din, cs, clk).open()) {
+    int[] a = Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+    Max7219 display = args.length == 2 ? new Max7219(new SpiDev(a[0], a[1]), 4, 1)
+        : new Max7219(new Pin(a[0], a[1]), new Pin(a[2], a[3]), new Pin(a[4], a[5]));
+    try (Max7219 max7219 = display.open()) {
       max7219.setBrightness(15);
       max7219.print(0, 0, "................................", 0);
       max7219.print(0, 1, "#.#.....#.#......#.#.........#..", 0);
@@ -21,44 +21,46 @@ import com.diozero.api.GpioEventTrigger;
 import com.diozero.api.GpioPullUpDown;
 import com.diozero.internal.provider.builtin.gpio.GpioChip;
 import com.diozero.internal.provider.builtin.gpio.GpioLine;
+import com.diozero.internal.provider.builtin.gpio.GpioLineEvent;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 /**
  * The reference implementation of GPIO pin. Can be overridden by hardware specific implementations.
  */
 public class Pin implements AutoCloseable {
-  private static final Map<Integer, GpioChip> chips;
-  static {
-    int[] gpiochipIds;
-    try {
-      gpiochipIds = Files.list(Paths.get("/dev")).filter(p -> p.getFileName().toString().matches("gpiochip\\d+"))
-          .filter(p -> !Files.isSymbolicLink(p)) // can return false for symlink, witnessed this once
-          .mapToInt(p -> Integer.parseInt(p.getFileName().toString().substring(8))).sorted().toArray();
-    } catch (IOException e) {
-      throw new UncheckedIOException("Error initialising GPIO chips", e);
-    }
-    HashMap<Integer, GpioChip> map = new HashMap<>();
-    for (int gpiochipId : gpiochipIds) {
-      GpioChip gpioChip = GpioChip.openChip("/dev/gpiochip" + gpiochipId);
-      if (gpioChip == null || gpiochipId != gpioChip.getChipId()) continue;
-      map.put(gpiochipId, gpioChip);
-    }
-    chips = Collections.unmodifiableMap(map);
-    Runtime.getRuntime().addShutdownHook(new Thread(() -> chips.values().forEach(GpioChip::close)));
-  }
+  private static final Map<Integer, GpioChip> chips = new ConcurrentHashMap<>(); // opened on demand
+  private static final AtomicBoolean shutdownHook = new AtomicBoolean();
 
+  private static final int GPIOEVENT_EVENT_RISING_EDGE = 0x01;
   private final int chip;
   private final int offset;
   private final boolean readOnly;
+  private EdgeListener edgeListener;
   private GpioLine line;
 
+  /**
+   * Receives the edges of input line in event mode.
+   */
+  @FunctionalInterface
+  public interface EdgeListener {
+    /**
+     * Called on the event thread of the GPIO chip.
+     * @param value the level after the edge, true for rising edge
+     * @param nanos kernel timestamp of the edge
+     */
+    void edge(boolean value, long nanos);
+  }
+
   public Pin(int chip, int offset) {
     this(chip, offset, false);
   }
@@ -69,11 +71,85 @@ public class Pin implements AutoCloseable {
     this.readOnly = readOnly;
   }
 
+  /**
+   * @return the chip, opened on the first call
+   * @throws IllegalStateException if there is no such chip
+   */
+  static GpioChip chip(int chip) {
+    GpioChip gpioChip = chips.computeIfAbsent(chip, Pin::openChip);
+    if (gpioChip == null) throw new IllegalStateException("no /dev/gpiochip" + chip);
+    return gpioChip;
+  }
+
+  private static GpioChip openChip(int chip) {
+    GpioChip gpioChip = GpioChip.openChip("/dev/gpiochip" + chip);
+    if (gpioChip == null) return null;
+    if (gpioChip.getChipId() != chip) { // symlink to other chip
+      gpioChip.close();
+      return null;
+    }
+    if (!shutdownHook.getAndSet(true)) {
+      Runtime.getRuntime().addShutdownHook(new Thread(() -> chips.values().forEach(GpioChip::close)));
+    }
+    return gpioChip;
+  }
+
+  /**
+   * Opens all GPIO chips in parallel, so the first open of a pin does not wait for its chip. Optional.
+   * @return ids of the opened chips
+   */
+  public static int[] openChips() {
+    int[] ids;
+    try (Stream<Path> list = Files.list(Paths.get("/dev"))) {
+      ids = list.map(p -> p.getFileName().toString()).filter(s -> s.matches("gpiochip\\d+"))
+          .mapToInt(s -> Integer.parseInt(s.substring(8))).sorted().toArray();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Error initialising GPIO chips", e);
+    }
+    return Arrays.stream(ids).parallel().filter(id -> chips.computeIfAbsent(id, Pin::openChip) != null).toArray();
+  }
+
+  /**
+   * Event mode for input pin: the line is requested with both edges trigger and the kernel reports the edges
+   * to the listener, no polling is needed. Must be set before open.
+   * @param edgeListener the listener, null for polling mode
+   */
+  public Pin setEdgeListener(EdgeListener edgeListener) {
+    if (!readOnly && edgeListener != null) throw new IllegalStateException("output pin");
+    this.edgeListener = edgeListener;
+    return this;
+  }
+
+  public EdgeListener getEdgeListener() {
+    return edgeListener;
+  }
+
+  /**
+   * Delivers the edge to the listener.
+   */
+  protected void edge(boolean value, long nanos) {
+    EdgeListener edgeListener = this.edgeListener;
+    if (edgeListener != null) edgeListener.edge(value, nanos);
+  }
+
+  /**
+   * Receives the line events from the chip and delivers them as edges.
+   */
+  void event(GpioLineEvent event) {
+    edge(event.getEventDataId() == GPIOEVENT_EVENT_RISING_EDGE, event.getTimestamp());
+  }
+
   public Pin open() {
     if (line != null) throw new IllegalStateException("not closed");
-    GpioChip gpioChip = chips.get(chip);
-    line = readOnly ? gpioChip.provisionGpioInputDevice(offset, GpioPullUpDown.NONE, GpioEventTrigger.NONE)
-        : gpioChip.provisionGpioOutputDevice(offset, 0);
+    GpioChip gpioChip = chip(chip);
+    if (!readOnly) {
+      line = gpioChip.provisionGpioOutputDevice(offset, 0);
+    } else if (edgeListener == null) {
+      line = gpioChip.provisionGpioInputDevice(offset, GpioPullUpDown.NONE, GpioEventTrigger.NONE);
+    } else {
+      line = gpioChip.provisionGpioInputDevice(offset, GpioPullUpDown.NONE, GpioEventTrigger.BOTH);
+      gpioChip.register(line.getFd(), this::event);
+    }
     return this;
   }
 
@@ -81,6 +157,7 @@ public class Pin implements AutoCloseable {
   public void close() {
     GpioLine line = this.line;
     if (line == null) return;
+    if (readOnly && edgeListener != null) chips.get(chip).deregister(line.getFd());
     line.close();
     this.line = null;
   }
@@ -94,4 +171,17 @@ public class Pin implements AutoCloseable {
     return line.getValue() != 0;
   }
 
+  /**
+   * Creates a group of opened pins that can be written with one call. Backends able to change several lines at once
+   * override {@link #newGroup(Pin[])}, the reference implementation writes only the lines that changed.
+   * @param pins up to 32 pins, the index of the pin in array is the bit number in group values
+   */
+  public static PinGroup group(Pin... pins) {
+    return pins[0].newGroup(pins);
+  }
+
+  protected PinGroup newGroup(Pin[] pins) {
+    return new PinGroup(pins);
+  }
+
 }
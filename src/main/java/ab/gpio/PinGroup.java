@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2025 Aleksei Balan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ab.gpio;
+
+/**
+ * Several pins written and read as a bitmask, bit i is the pin i of the group.
+ * The group remembers the values it has written and skips the lines that already have the requested value,
+ * so all writes to the grouped pins must go through the group. Lines are written in the order of pins,
+ * the reference implementation is not atomic: diozero requests every line separately, so there is no kernel call
+ * that sets several of them. Backends that support it write all lines in one call.
+ */
+public class PinGroup {
+  protected final Pin[] pins;
+  private final int all;
+  private int known;
+  private int state;
+
+  public PinGroup(Pin... pins) {
+    if (pins.length == 0 || pins.length > 32) throw new IllegalArgumentException("1-32 pins");
+    this.pins = pins.clone();
+    this.all = pins.length == 32 ? -1 : (1 << pins.length) - 1;
+  }
+
+  public int size() {
+    return pins.length;
+  }
+
+  /**
+   * @param mask the pins to be written
+   * @param values new values of the pins, bits outside of mask are ignored
+   */
+  public void set(int mask, int values) {
+    mask &= all;
+    int changed = mask & (~known | state ^ values);
+    if (changed != 0) write(changed, values);
+    state = state & ~mask | values & mask;
+    known |= mask;
+  }
+
+  public void set(int values) {
+    set(all, values);
+  }
+
+  /**
+   * Writes the lines unconditionally.
+   * @param mask the pins that have to change, never 0
+   * @param values new values of the pins
+   */
+  protected void write(int mask, int values) {
+    while (mask != 0) {
+      int i = Integer.numberOfTrailingZeros(mask);
+      pins[i].set((values >>> i & 1) != 0);
+      mask &= mask - 1;
+    }
+  }
+
+  /**
+   * Forgets the written values, next write will go to all lines. Used after pins were written directly.
+   */
+  public void invalidate() {
+    known = 0;
+  }
+
+  public int get() {
+    int values = 0;
+    for (int i = 0; i < pins.length; i++) if (pins[i].get()) values |= 1 << i;
+    return values;
+  }
+
+}
@@ -19,41 +19,149 @@ package ab.gpio;
 
 import ab.gpio.driver.BusyRunnable;
 import ab.gpio.driver.BusyRunner;
+import ab.gpio.driver.SysfsPwm;
 
+/**
+ * Soft PWM running in BusyRunner, or hardware PWM channel of the pin when it is present.
+ */
 public class Pwm implements BusyRunnable {
+  public static final int DEFAULT_FREQUENCY = 1000;
+
+  public enum Mode {
+    /**
+     * Period is t iterations of BusyRunner loop, frequency depends on the loop speed.
+     */
+    LOOP,
+    /**
+     * Period is 1/frequency by System.nanoTime().
+     */
+    TIME,
+    /**
+     * First order sigma-delta, pw of every t iterations are on and spread evenly. For LED dimming.
+     */
+    SIGMA_DELTA
+  }
+
   private int i = 0;
-  private int pw = 0;
-  private int t = 1;
+  private volatile long duty = 1; // pw << 32 | t, published as one value
+  private volatile Mode mode = Mode.LOOP;
+  private int frequency = DEFAULT_FREQUENCY;
+  private volatile long period = 1_000_000_000L / DEFAULT_FREQUENCY;
+  private long start;
+  private boolean value;
   private boolean open;
+  private boolean hardwareOpen;
   private final Pin pin;
   private final BusyRunner runner;
+  private final SysfsPwm hardware;
 
   public Pwm(Pin pin, BusyRunner runner) {
+    this(pin, runner, null);
+  }
+
+  /**
+   * @param hardware PWM channel connected to the pin, if the channel is not present the soft PWM is used
+   */
+  public Pwm(Pin pin, BusyRunner runner, SysfsPwm hardware) {
     this.pin = pin;
     this.runner = runner;
+    this.hardware = hardware;
   }
 
   /**
    * 0% and 100% duty cycle applied immediately
    */
   public void setDutyCycle(int pw, int t) {
+    if (t <= 0) throw new IllegalArgumentException("t " + t);
+    this.duty = (long) pw << 32 | t;
+    if (hardwareOpen) {
+      hardware.setDutyCycle(hardware.getPeriod() * Math.min(Math.max(0, pw), t) / t);
+      return;
+    }
     if (open && pw <= 0) pin.set(false); else if (open && pw >= t) pin.set(true);
-    this.pw = pw;
-    this.t = t;
+  }
+
+  /**
+   * Frequency of hardware PWM and of soft PWM in {@link Mode#TIME} mode.
+   */
+  public void setFrequency(int frequency) {
+    if (frequency <= 0) throw new IllegalArgumentException("frequency " + frequency);
+    this.frequency = frequency;
+    this.period = 1_000_000_000L / frequency;
+    if (hardwareOpen) {
+      hardware.setPeriod(period);
+      long duty = this.duty;
+      setDutyCycle((int) (duty >> 32), (int) duty);
+    }
+  }
+
+  /**
+   * Soft PWM mode, LOOP by default.
+   */
+  public void setMode(Mode mode) {
+    this.mode = mode;
+  }
+
+  public boolean isHardware() {
+    return hardwareOpen;
   }
 
   @Override
   public void run() {
+    run(mode == Mode.TIME ? System.nanoTime() : 0);
+  }
+
+  /**
+   * @param nanoTime current time, used in {@link Mode#TIME} mode
+   */
+  void run(long nanoTime) {
     if (!open) return;
-    if (i >= t) i = 0;
-    pin.set(i++ < pw);
+    long duty = this.duty;
+    int pw = (int) (duty >> 32);
+    int t = (int) duty;
+    boolean v;
+    switch (mode) {
+      case TIME:
+        long period = this.period;
+        v = (nanoTime - start) % period * t < (long) pw * period;
+        break;
+      case SIGMA_DELTA:
+        i += Math.min(Math.max(0, pw), t);
+        v = i >= t;
+        if (v) i -= t;
+        break;
+      default:
+        if (i >= t) i = 0;
+        v = i++ < pw;
+    }
+    if (v != value) {
+      pin.set(v);
+      value = v;
+    }
   }
 
   @Override
   public Pwm open() {
     if (open) throw new IllegalStateException();
-    open = true;
+    if (hardware != null && hardware.isPresent()) {
+      hardware.open();
+      hardwareOpen = true;
+      try {
+        setFrequency(frequency);
+        hardware.setEnabled(true);
+      } catch (RuntimeException e) {
+        hardwareOpen = false;
+        hardware.close();
+        throw e;
+      }
+      open = true;
+      return this;
+    }
     pin.open();
+    value = false;
+    i = 0;
+    start = System.nanoTime();
+    open = true; // after the pin is opened, before the first run()
     runner.add(this);
     return this;
   }
@@ -61,6 +169,11 @@ public class Pwm implements BusyRunnable {
   @Override
   public void close() {
     open = false;
+    if (hardwareOpen) {
+      hardwareOpen = false;
+      hardware.close();
+      return;
+    }
     runner.remove(this);
     pin.close();
   }
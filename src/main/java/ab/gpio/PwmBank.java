@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2025 Aleksei Balan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ab.gpio;
+
+import ab.gpio.driver.BusyRunnable;
+import ab.gpio.driver.BusyRunner;
+
+/**
+ * Soft PWM of up to 32 pins in one runnable, bit angle modulation with 8 bit duty cycle.
+ * The period is split into 8 slots of 1, 2, 4 ... 128 time units, in the slot n the pins with bit n of duty cycle
+ * are on. Pins are written as a PinGroup, only the pins that change between slots are written,
+ * so the cost depends on the number of transitions and not on the number of pins.
+ */
+public class PwmBank implements BusyRunnable {
+  public static final int BITS = 8;
+  public static final int MAX = (1 << BITS) - 1;
+  private final Pin[] pins;
+  private final BusyRunner runner;
+  private final int[] duty;
+  private final long unit;
+  private volatile int[] planes = new int[BITS]; // pins that are on in every slot
+  private PinGroup group;
+  private int slot;
+  private long deadline;
+  private boolean open;
+
+  /**
+   * @param frequency PWM frequency, the shortest slot is 1/255 of the period and at least 1 ns
+   */
+  public PwmBank(BusyRunner runner, int frequency, Pin... pins) {
+    if (pins.length > 32) throw new IllegalArgumentException("1-32 pins");
+    if (frequency <= 0 || frequency > 1_000_000_000 / MAX) throw new IllegalArgumentException("frequency " + frequency);
+    this.pins = pins.clone();
+    this.runner = runner;
+    this.duty = new int[pins.length];
+    this.unit = 1_000_000_000L / frequency / MAX;
+  }
+
+  public int size() {
+    return pins.length;
+  }
+
+  /**
+   * @param duty 0-255
+   */
+  public synchronized void setDutyCycle(int channel, int duty) {
+    this.duty[channel] = Math.min(Math.max(0, duty), MAX);
+    publish();
+  }
+
+  /**
+   * Sets all channels at once.
+   * @param duty 0-255 for every channel
+   */
+  public synchronized void setDutyCycle(int[] duty) {
+    for (int i = 0; i < this.duty.length; i++) this.duty[i] = Math.min(Math.max(0, duty[i]), MAX);
+    publish();
+  }
+
+  private void publish() {
+    int[] planes = new int[BITS];
+    for (int b = 0; b < BITS; b++) {
+      for (int i = 0; i < duty.length; i++) if ((duty[i] >> b & 1) != 0) planes[b] |= 1 << i;
+    }
+    this.planes = planes;
+  }
+
+  @Override
+  public void run() {
+    run(System.nanoTime());
+  }
+
+  void run(long nanoTime) {
+    if (!open || nanoTime - deadline < 0) return;
+    if (++slot >= BITS) slot = 0;
+    group.set(planes[slot]);
+    long length = unit << slot;
+    deadline = nanoTime - deadline > length ? nanoTime + length : deadline + length;
+  }
+
+  @Override
+  public PwmBank open() {
+    if (open) throw new IllegalStateException("not closed");
+    for (Pin pin : pins) pin.open();
+    group = Pin.group(pins);
+    slot = BITS - 1;
+    deadline = System.nanoTime();
+    open = true;
+    runner.add(this);
+    return this;
+  }
+
+  @Override
+  public void close() {
+    open = false;
+    runner.remove(this);
+    for (Pin pin : pins) pin.close();
+  }
+
+}
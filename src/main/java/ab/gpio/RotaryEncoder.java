@@ -19,44 +19,141 @@ package ab.gpio;
 
 import ab.gpio.driver.BusyRunnable;
 import ab.gpio.driver.BusyRunner;
+import ab.gpio.driver.EventRing;
 import ab.tui.Tui;
 
 import java.awt.Dimension;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.function.Consumer;
 
+/**
+ * Quadrature decoder with detents at the state when both CLK and DT are high, four transitions per detent.
+ * Every transition of both channels is decoded, transitions skipping a state are rejected.
+ * Without BusyRunner the pins are used in event mode, the encoder is idle until the kernel reports an edge.
+ */
 public class RotaryEncoder implements Tui, BusyRunnable {
 
+  public static final long SCAN_PERIOD_NS = 200_000; // 5 kHz
+  private static final int REST = 0b11;
+  private static final int INVALID = 2;
+  // step for previous state << 2 | state, where state is CLK << 1 | DT, clockwise is 11 01 00 10 11
+  private static final int[] TRANSITION = {
+      0, -1, 1, INVALID,
+      1, 0, INVALID, -1,
+      -1, INVALID, 0, 1,
+      INVALID, 1, -1, 0};
+  private static final int SWITCH_RELEASED = Integer.MIN_VALUE;
+  private static final int SWITCH_PRESSED = Integer.MIN_VALUE + 1;
+
   private final Pin clk; // OA
   private final Pin dt; // OB
   private final Pin sw;
   private final BusyRunner runner;
-  private final BlockingQueue<Integer> queue;
+  private final EventRing events;
   private Consumer<String> keyListener;
-  private boolean clkv;
+  private int state;
+  private int quarters;
+  private long invalid;
+  private int accelerationThreshold;
+  private int accelerationMax;
+  private int lastDirection;
+  private long lastDetent;
   private boolean swv;
-  private boolean open;
+  private volatile Thread keyThread;
+  private volatile boolean open;
 
   public RotaryEncoder(Pin clk, Pin dt, Pin sw, BusyRunner runner) {
     this.clk = clk;
     this.dt = dt;
     this.sw = sw;
     this.runner = runner;
-    this.queue = new LinkedBlockingQueue<>();
+    this.events = new EventRing(256);
+  }
+
+  /**
+   * Event mode encoder, pins must be input pins.
+   */
+  public RotaryEncoder(Pin clk, Pin dt, Pin sw) {
+    this(clk, dt, sw, null);
   }
 
   @Override
   public void run() {
     boolean swv = !sw.get();
-    if (swv && !this.swv) queue.add(2);
-    boolean clkv = !clk.get();
-    if (clkv && !this.clkv) queue.add(dt.get() ? 1 : -1);
-    this.clkv = clkv;
-    if (!swv && this.swv) queue.add(0);
+    if (swv && !this.swv) events.offer(SWITCH_PRESSED, System.nanoTime());
+    int state = (clk.get() ? 2 : 0) | (dt.get() ? 1 : 0);
+    if (state != this.state) decode(state, System.nanoTime());
+    if (!swv && this.swv) events.offer(SWITCH_RELEASED, System.nanoTime());
     this.swv = swv;
   }
 
+  private synchronized void clkEdge(boolean value, long nanos) {
+    int state = this.state & 1 | (value ? 2 : 0);
+    if (state != this.state) decode(state, nanos);
+  }
+
+  private synchronized void dtEdge(boolean value, long nanos) {
+    int state = this.state & 2 | (value ? 1 : 0);
+    if (state != this.state) decode(state, nanos);
+  }
+
+  private synchronized void swEdge(boolean value, long nanos) {
+    if (value == this.swv) {
+      this.swv = !value;
+      events.offer(value ? SWITCH_RELEASED : SWITCH_PRESSED, nanos);
+    }
+  }
+
+  /**
+   * Counts quarter steps and reports a detent when the encoder comes to rest with at least half of a detent counted,
+   * so bouncing contacts and a single missed state do not lose or add a detent.
+   */
+  private void decode(int state, long nanoTime) {
+    int step = TRANSITION[this.state << 2 | state];
+    this.state = state;
+    if (step == INVALID) {
+      invalid++;
+      return;
+    }
+    quarters += step;
+    if (state != REST) return;
+    int direction = quarters >= 2 ? 1 : quarters <= -2 ? -1 : 0;
+    quarters = 0;
+    if (direction == 0) return;
+    int steps = 1;
+    if (accelerationThreshold > 0 && direction == lastDirection) {
+      long detentsPerSecond = 1_000_000_000L / Math.max(1, nanoTime - lastDetent);
+      steps = (int) Math.max(1, Math.min(1 + detentsPerSecond / accelerationThreshold, accelerationMax));
+    }
+    lastDirection = direction;
+    lastDetent = nanoTime;
+    events.offer(direction * steps, nanoTime);
+  }
+
+  /**
+   * Rotation faster than the threshold is reported as several steps per detent.
+   * @param threshold detents per second for 2 steps per detent, 3 steps at twice the threshold and so on,
+   *                  0 disables acceleration
+   * @param max maximum steps per detent
+   */
+  public void setAcceleration(int threshold, int max) {
+    this.accelerationThreshold = threshold;
+    this.accelerationMax = max;
+  }
+
+  /**
+   * @return number of rejected transitions, when both channels changed between two scans
+   */
+  public long getInvalid() {
+    return invalid;
+  }
+
+  /**
+   * @return number of events lost because the key listener was too slow
+   */
+  public long getOverflow() {
+    return events.getOverflow();
+  }
+
   @Override
   public Dimension getSize() {
     return new Dimension();
@@ -81,19 +178,16 @@ public class RotaryEncoder implements Tui, BusyRunnable {
     int v;
     boolean swv = false;
     while (open) {
-      try {
-        v = queue.take();
-      } catch (InterruptedException e) {
-        break;
-      }
-      if (!open) break;
+      if (!events.await()) break;
+      v = events.take();
       Consumer<String> keyListener = this.keyListener;
       if (keyListener == null) continue;
       switch (v) {
-        case -1: keyListener.accept(swv ? "-" : "Left"); break;
-        case 1: keyListener.accept(swv ? "+" : "Right"); break;
-        case 0: keyListener.accept("0"); swv = false; break;
-        case 2: keyListener.accept("1"); swv = true; break;
+        case SWITCH_RELEASED: keyListener.accept("0"); swv = false; break;
+        case SWITCH_PRESSED: keyListener.accept("1"); swv = true; break;
+        default:
+          String key = v < 0 ? (swv ? "-" : "Left") : (swv ? "+" : "Right");
+          for (int i = Math.abs(v); i > 0; i--) keyListener.accept(key);
       }
     }
   }
@@ -102,20 +196,36 @@ public class RotaryEncoder implements Tui, BusyRunnable {
   public RotaryEncoder open() {
     if (open) throw new IllegalStateException("not closed");
     open = true;
-    clk.open();
-    dt.open();
-    sw.open();
-    runner.add(this);
-    queue.clear();
-    new Thread(this::keyRun).start();
+    if (runner == null) {
+      clk.setEdgeListener(this::clkEdge);
+      dt.setEdgeListener(this::dtEdge);
+      sw.setEdgeListener(this::swEdge);
+    }
+    events.reset();
+    synchronized (this) {
+      clk.open();
+      dt.open();
+      sw.open();
+      state = (clk.get() ? 2 : 0) | (dt.get() ? 1 : 0);
+      quarters = 0;
+    }
+    if (runner != null) runner.add(this, SCAN_PERIOD_NS);
+    keyThread = new Thread(this::keyRun);
+    keyThread.start();
     return this;
   }
 
   @Override
   public void close() {
+    if (!open) return;
     open = false;
-    queue.add(0); // unblock queue
-    runner.remove(this);
+    events.close();
+    try {
+      if (!keyThread.equals(Thread.currentThread())) keyThread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (runner != null) runner.remove(this);
     clk.close();
     dt.close();
     sw.close();
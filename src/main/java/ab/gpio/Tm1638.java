@@ -17,70 +17,114 @@
 
 package ab.gpio;
 
+import ab.gpio.driver.BitBang;
+import ab.gpio.driver.EventRing;
+import ab.gpio.driver.LatencyRecorder;
 import ab.tui.Tui;
 
 import java.awt.Dimension;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Consumer;
 
+/**
+ * Frames are triple buffered: update() fills the back buffer and swaps it with the pending one,
+ * the refresh thread swaps the pending buffer with the front one when it is fresh. No frame can be torn.
+ * Display refresh and key scan have their own rates, the refresh thread parks until the nearest deadline
+ * of a pending frame or a key scan, or indefinitely if there is neither.
+ * Key changes are queued as events and the key listener is called from its own thread,
+ * so a slow listener does not delay the bus.
+ */
 public class Tm1638 implements Tui {
 
-  private static final int PWCLK_NS = 400;
-  private final Pin stb;
-  private final Pin clk;
-  private final Pin dio;
-  private Thread thread;
-  private boolean open;
-  private Consumer<String> keyListener;
+  static final int PWCLK_NS = 400;
+  private static final int FIXED_ADDRESS_MAX = 6; // more changed cells are sent with one auto increment command
+  private static final int INDEX = 3;
+  private static final int FRESH = 4;
+  private static final int SENT_FRAME = 1;
+  private static final int SENT_SCAN = 2;
+  public static final int REFRESH_RATE = 100;
+  public static final int SCAN_RATE = 100;
+  private static final String[] KEY = {"1", "2", "3", "4", "5", "6", "7", "8"};
+  private static final String[] KEY_PRESSED = {"+1", "+2", "+3", "+4", "+5", "+6", "+7", "+8"};
+  private static final String[] KEY_RELEASED = {"-1", "-2", "-3", "-4", "-5", "-6", "-7", "-8"};
+  private final BitBang bus;
+  private volatile Thread thread;
+  private volatile Thread keyThread;
+  private volatile boolean open;
+  private volatile Consumer<String> keyListener;
 
-  private int brightness;
+  private volatile int brightness;
   protected final boolean[] led = new boolean[8];
   protected final byte[] digit = new byte[8];
-  private final byte[] frontBuffer = new byte[8];
+  private final int[][] frames = new int[3][16]; // display memory cells
+  private final AtomicInteger pending = new AtomicInteger(0); // index of pending frame | FRESH
+  private int back = 1; // owned by update()
+  private int front = 2; // owned by the refresh thread
   private final boolean[] button = new boolean[8];
-  public final int latencySize = 10001;
-  public int latencyPtr;
-  public long[] latency = new long[latencySize];
+  private final int[] sent = new int[16]; // display memory as last written to chip, -1 unknown
+  private final int[] keys = new int[4];
+  private final EventRing events = new EventRing(64); // key number, negative if released
+  private volatile long keyTime;
+  private int sentBrightness;
+  private final LatencyRecorder latency = new LatencyRecorder();
+  private final LatencyRecorder scanLatency = new LatencyRecorder();
+  private volatile long framePeriod = period(REFRESH_RATE);
+  private volatile long scanPeriod = period(SCAN_RATE);
 
   public Tm1638(Pin stb, Pin clk, Pin dio) {
-    this.stb = stb;
-    this.clk = clk;
-    this.dio = dio;
+    this.bus = new BitBang(stb, clk, dio, 8, true, true).setTiming(PWCLK_NS, PWCLK_NS, PWCLK_NS, PWCLK_NS, PWCLK_NS);
   }
 
   @Override
   public Tm1638 open() {
+    return open(true);
+  }
+
+  /**
+   * @param threads start the refresh and key threads, without them the caller sends frames with
+   *                {@link #refresh(boolean, boolean)}, used by benchmarks
+   */
+  Tm1638 open(boolean threads) {
     if (open) throw new IllegalStateException("not closed");
     //for (int i = 0; i < 8; i++) button[i] = false;
     // button state must not be cleared, or else button hold between close and open will be reported as clicked again
     open = true;
     brightness = 7;
-    stb.open();
-    clk.open();
-    dio.open();
-    thread = new Thread(this::run);
-    thread.start();
+    Arrays.fill(sent, -1);
+    sentBrightness = -1;
+    bus.open();
+    events.reset();
+    keyThread = threads ? new Thread(this::keyRun) : null;
+    thread = threads ? new Thread(this::run) : null;
+    if (threads) {
+      keyThread.start();
+      thread.start();
+    }
     return this;
   }
 
+  /**
+   * Sends a blank frame and stops the refresh thread. Key events not yet dispatched are dropped.
+   */
   @Override
   public void close() {
     if (!open) return;
-    for (int i = 0; i < 8; i++) {
-      digit[i] = 0;
-      frontBuffer[i] = 0;
-      led[i] = false;
-    }
+    Arrays.fill(digit, (byte) 0);
+    Arrays.fill(led, false);
+    update();
+    open = false;
+    LockSupport.unpark(thread);
+    events.close(); // the key thread finishes the current event and stops
     try {
-      synchronized (this) {
-        this.wait();
-      }
-      open = false;
-      if (!thread.equals(Thread.currentThread())) thread.join();
-    } catch (InterruptedException ignore) {
+      if (thread == null) refresh(true, false); // opened without threads
+      else if (!thread.equals(Thread.currentThread())) thread.join();
+      if (keyThread != null && !keyThread.equals(Thread.currentThread())) keyThread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
     }
-    stb.close();
-    clk.close();
-    dio.close();
+    bus.close();
   }
 
   @Override
@@ -101,9 +145,68 @@ public class Tm1638 implements Tui {
     print(s, x);
   }
 
+  /**
+   * Publishes the printed digits and leds as the next frame and wakes the refresh thread.
+   */
   @Override
-  public void update() {
-    System.arraycopy(digit, 0, frontBuffer, 0, 8);
+  public synchronized void update() {
+    int[] frame = frames[back];
+    for (int i = 0, j = 0; i < 8; i++) {
+      frame[j++] = digit[i] & 0xFF;
+      frame[j++] = led[i] ? 0xFF : 0;
+    }
+    back = pending.getAndSet(back | FRESH) & INDEX;
+    LockSupport.unpark(thread);
+  }
+
+  /**
+   * @return frame times of the refresh thread
+   */
+  public LatencyRecorder getLatency() {
+    return latency;
+  }
+
+  /**
+   * @return time from a key scan deadline to the end of the scan, the worst key latency is this plus the scan period
+   */
+  public LatencyRecorder getScanLatency() {
+    return scanLatency;
+  }
+
+  /**
+   * @return number of key events lost because the key listener was too slow
+   */
+  public long getOverflow() {
+    return events.getOverflow();
+  }
+
+  /**
+   * @return System.nanoTime() at the end of the key scan that found the key being dispatched,
+   * the key listener can use it to measure its own latency
+   */
+  public long getKeyTime() {
+    return keyTime;
+  }
+
+  private static long period(int rate) {
+    if (rate < 0) throw new IllegalArgumentException("rate " + rate);
+    return rate == 0 ? 0 : 1_000_000_000L / rate;
+  }
+
+  /**
+   * @param fps maximum display frames per second, 0 for unlimited, frames are sent only when changed
+   */
+  public void setRefreshRate(int fps) {
+    framePeriod = period(fps);
+    LockSupport.unpark(thread);
+  }
+
+  /**
+   * @param scans key scans per second when there is a key listener, 0 for unlimited
+   */
+  public void setScanRate(int scans) {
+    scanPeriod = period(scans);
+    LockSupport.unpark(thread);
   }
 
   /**
@@ -111,103 +214,123 @@ public class Tm1638 implements Tui {
    */
   public void setBrightness(int brightness) {
     this.brightness = brightness;
+    LockSupport.unpark(thread);
   }
 
   @Override
   public void setKeyListener(Consumer<String> keyListener) {
     this.keyListener = keyListener;
+    LockSupport.unpark(thread);
   }
 
-  private void run() {
-    int[] command = new int[17];
-    while (open) {
-      long nanoTime = System.nanoTime();
-      synchronized (this) {
-        this.notifyAll();
+  private void keyRun() {
+    while (open && events.await()) { // queued events are dropped on close
+      int key = events.take();
+      keyTime = events.time();
+      Consumer<String> keyListener = this.keyListener;
+      if (keyListener == null) continue;
+      if (key > 0) {
+        keyListener.accept(KEY_PRESSED[key - 1]);
+        keyListener.accept(KEY[key - 1]);
+      } else {
+        keyListener.accept(KEY_RELEASED[-key - 1]);
       }
-      writeCommand(0x40);
-      command[0] = 0xC0;
-      for (int i = 0, j = 0; i < 8; i++) {
-        command[++j] = this.frontBuffer[i];
-        command[++j] = this.led[i] ? 0xFF : 0;
-      }
-      writeCommand(command);
-      writeCommand(0x88 + Math.min(Math.max(0, brightness), 7));
-
-      strobeLow();
-      writeByte(0x42);
-      dio.set(true);
-      int btnByte = 0;
-      for (int i = 0; i < 4; i++) btnByte |= readByte() << i;
-      for (int i = 0; i < 8; i++) {
-        boolean newButton = (1 << i & btnByte) != 0;
-        Consumer<String> keyListener = this.keyListener;
-        if (this.button[i] != newButton && keyListener != null) {
-          String key = String.format("%d", i + 1);
-          if (newButton) {
-            keyListener.accept("+" + key);
-            keyListener.accept(key);
-          } else {
-            keyListener.accept("-" + key);
-          }
-        }
-        this.button[i] = newButton;
-      }
-      strobeHigh();
-      latency[latencyPtr] = System.nanoTime() - nanoTime;
-      if (++latencyPtr >= latencySize) latencyPtr = 0;
     }
   }
 
-  private static void sleep() {
-    long nanoTime = System.nanoTime() + PWCLK_NS;
-    while (System.nanoTime() < nanoTime) ;
+  private static long next(long deadline, long period, long nanoTime) {
+    deadline += period;
+    return deadline - nanoTime > 0 ? deadline : nanoTime + period; // a late thread skips the missed deadlines
   }
 
-  private void writeByte(int data) {
-    for (int i = 0; i < 8; i++) {
-      clk.set(false);
-      dio.set((1 << i & data) != 0);
-      sleep();
-      clk.set(true);
-      sleep();
-    }
+  private boolean framePending() {
+    return (pending.get() & FRESH) != 0 || Math.min(Math.max(0, brightness), 7) != sentBrightness;
   }
 
-  private int readByte() {
-    int data = 0;
-    for (int i = 0; i < 8; i++) {
-      clk.set(false);
-      sleep();
-      data |= (dio.get() ? 1 : 0) << i;
-      clk.set(true);
-      sleep();
+  private void run() {
+    long frameDeadline = System.nanoTime();
+    long scanDeadline = frameDeadline;
+    while (true) {
+      boolean open = this.open; // read before the frame, so the last frame is sent
+      long nanoTime = System.nanoTime();
+      boolean scan = keyListener != null;
+      if (!scan) scanDeadline = nanoTime; // the first scan is due as soon as a listener is set
+      int sent = refresh(!open || nanoTime - frameDeadline >= 0, scan && nanoTime - scanDeadline >= 0);
+      long end = System.nanoTime();
+      if ((sent & SENT_FRAME) != 0) {
+        latency.record(end - nanoTime);
+        frameDeadline = next(frameDeadline, framePeriod, nanoTime);
+      }
+      if ((sent & SENT_SCAN) != 0) {
+        scanLatency.record(end - scanDeadline);
+        scanDeadline = next(scanDeadline, scanPeriod, nanoTime);
+      }
+      if (!open) break;
+      boolean frame = framePending();
+      if (!scan && !frame) {
+        LockSupport.park(this);
+        continue;
+      }
+      long deadline = scan && frame ? (scanDeadline - frameDeadline < 0 ? scanDeadline : frameDeadline)
+          : scan ? scanDeadline : frameDeadline;
+      long wait = deadline - System.nanoTime();
+      if (wait > 0) LockSupport.parkNanos(this, wait); // update() and setters unpark early
     }
-    return data;
-  }
-
-  private void strobeLow() {
-    stb.set(true);
-    clk.set(true);
-    sleep();
-    stb.set(false);
-    sleep();
   }
 
-  private void strobeHigh() {
-    stb.set(true);
-    sleep();
-  }
+  /**
+   * Writes the cells of the latest frame that differ from the chip display memory and the brightness
+   * if it was changed, then scans keys if there is a listener and queues the key changes.
+   * All is sent as one bus program.
+   * @param display send the display changes
+   * @param scan scan keys if there is a key listener
+   * @return SENT_FRAME and SENT_SCAN bits of what was sent
+   */
+  int refresh(boolean display, boolean scan) {
+    if (display && (pending.get() & FRESH) != 0) front = pending.getAndSet(front) & INDEX;
+    int[] cell = frames[front];
+    int dirty = 0;
+    if (display) for (int i = 0; i < 16; i++) if (cell[i] != sent[i]) dirty++;
+    if (dirty > FIXED_ADDRESS_MAX) {
+      bus.select().write(0x40).deselect();
+      bus.select().write(0xC0);
+      for (int i = 0; i < 16; i++) bus.write(sent[i] = cell[i]);
+      bus.deselect();
+    } else if (dirty > 0) {
+      bus.select().write(0x44).deselect();
+      for (int i = 0; i < 16; i++) {
+        if (cell[i] == sent[i]) continue;
+        bus.select().write(0xC0 + i).write(sent[i] = cell[i]).deselect();
+      }
+    }
+    int brightness = Math.min(Math.max(0, this.brightness), 7);
+    if (display && brightness != sentBrightness) {
+      bus.select().write(0x88 + brightness).deselect();
+      sentBrightness = brightness;
+    }
+    int sent = bus.size() > 0 ? SENT_FRAME : 0;
+    if (scan && keyListener != null) {
+      bus.select().write(0x42).read(4).deselect();
+      sent |= SENT_SCAN;
+    }
+    if (sent == 0) return 0;
+    bus.run(keys);
+    if ((sent & SENT_SCAN) == 0) return sent;
 
-  private void writeCommand(int... data) {
-    strobeLow();
-    for (int i = 0; i < data.length; i++) {
-      writeByte(data[i]);
+    int btnByte = 0;
+    for (int i = 0; i < 4; i++) btnByte |= keys[i] << i;
+    long nanoTime = 0;
+    for (int i = 0; i < 8; i++) {
+      boolean newButton = (1 << i & btnByte) != 0;
+      if (button[i] == newButton) continue;
+      if (nanoTime == 0) nanoTime = System.nanoTime();
+      events.offer(newButton ? i + 1 : -i - 1, nanoTime);
+      button[i] = newButton;
     }
-    strobeHigh();
+    return sent;
   }
 
-  private static int to7(char c) {
+  static int to7(char c) {
     int[] digit = {
         0b0111111, 0b0000110, 0b1011011, 0b1001111, 0b1100110, 0b1101101, 0b1111101, 0b0000111,
         0b1111111, 0b1101111, 0b1110111, 0b1111100, 0b0111001, 0b1011110, 0b1111001, 0b1110001};
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2025 Aleksei Balan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ab.gpio.driver;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Broadcom BCM2835, BCM2836, BCM2837 GPIO registers as mapped by /dev/gpiomem.
+ * The function select, set, clear and level registers are the same in BCM2711.
+ */
+public class Bcm283x implements GpioLayout {
+  public static final int GPFSEL0 = 0x00;
+  public static final int GPSET0 = 0x1C;
+  public static final int GPCLR0 = 0x28;
+  public static final int GPLEV0 = 0x34;
+
+  @Override
+  public int size() {
+    return 0xB4;
+  }
+
+  @Override
+  public int lines() {
+    return 54;
+  }
+
+  @Override
+  public int setRegister(int line) {
+    return GPSET0 + (line >> 5 << 2);
+  }
+
+  @Override
+  public int clearRegister(int line) {
+    return GPCLR0 + (line >> 5 << 2);
+  }
+
+  @Override
+  public int levelRegister(int line) {
+    return GPLEV0 + (line >> 5 << 2);
+  }
+
+  /**
+   * Three bits per line, ten lines per register. 000 input, 001 output.
+   */
+  @Override
+  public void setOutput(ByteBuffer registers, int line, boolean output) {
+    int register = GPFSEL0 + line / 10 * 4;
+    int shift = line % 10 * 3;
+    int fsel = registers.getInt(register) & ~(7 << shift);
+    registers.putInt(register, output ? fsel | 1 << shift : fsel);
+  }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) 2025 Aleksei Balan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ab.gpio.driver;
+
+import ab.gpio.Pin;
+import ab.gpio.PinGroup;
+
+import java.util.Arrays;
+
+/**
+ * Bit banged serial bus with active low chip select, data is changed with the falling clock and sampled
+ * on the rising clock. A frame is compiled to an array of bus states with the wait after each of them,
+ * then run in one loop of group writes, backends that support it change the lines with one call.
+ * Waits are counted from the end of the write and shortened by the write cost, see {@link Delay}.
+ */
+public class BitBang implements AutoCloseable {
+  private static final int CLK = 1;
+  private static final int DATA = 2;
+  private static final int CS = 4;
+  private static final int LINES = 7;
+  private static final int SAMPLE = 8; // read data line after the wait
+  private static final int WAIT_SHIFT = 4;
+  private final Pin cs;
+  private final Pin clk;
+  private final Pin data;
+  private final int wordSize;
+  private final boolean lsbFirst;
+  private final int idle;
+  private int csSetup;
+  private int clockLow;
+  private int clockHigh;
+  private int csHold;
+  private int csHigh;
+  private int[] steps = new int[1024];
+  private int size;
+  private int state;
+  private PinGroup group;
+  private Delay delay;
+
+  /**
+   * @param wordSize bits in word, 1-32
+   * @param lsbFirst bit order
+   * @param clockIdleHigh clock polarity, the level of clock line between words
+   */
+  public BitBang(Pin cs, Pin clk, Pin data, int wordSize, boolean lsbFirst, boolean clockIdleHigh) {
+    if (wordSize <= 0 || wordSize > 32) throw new IllegalArgumentException("word size " + wordSize);
+    this.cs = cs;
+    this.clk = clk;
+    this.data = data;
+    this.wordSize = wordSize;
+    this.lsbFirst = lsbFirst;
+    this.idle = clockIdleHigh ? CLK : 0;
+  }
+
+  /**
+   * Minimal times in nanoseconds, counted from the write of the line.
+   * @param csSetup chip select falling to the first clock rising
+   * @param clockLow clock low and data setup
+   * @param clockHigh clock high and data hold
+   * @param csHold last clock edge to chip select rising
+   * @param csHigh chip select high between frames
+   */
+  public BitBang setTiming(int csSetup, int clockLow, int clockHigh, int csHold, int csHigh) {
+    this.csSetup = csSetup;
+    this.clockLow = clockLow;
+    this.clockHigh = clockHigh;
+    this.csHold = csHold;
+    this.csHigh = csHigh;
+    return this;
+  }
+
+  public BitBang open() {
+    cs.open();
+    clk.open();
+    data.open();
+    cs.set(true); // chip is not selected while the clock line is calibrated
+    Delay.spin(csHigh);
+    delay = Delay.calibrate(clk);
+    group = Pin.group(clk, data, cs);
+    state = CS | idle;
+    group.set(state);
+    size = 0;
+    return this;
+  }
+
+  @Override
+  public void close() {
+    cs.close();
+    clk.close();
+    data.close();
+  }
+
+  public Delay getDelay() {
+    return delay;
+  }
+
+  private void step(int state, int wait) {
+    if (size == steps.length) steps = Arrays.copyOf(steps, size * 2);
+    steps[size++] = state | wait << WAIT_SHIFT;
+    this.state = state & LINES;
+  }
+
+  /**
+   * Starts a new frame in the program.
+   */
+  public BitBang select() {
+    if ((state & CLK) != idle) step(state & ~CLK | idle, clockHigh);
+    step(state & ~CS, csSetup);
+    return this;
+  }
+
+  public BitBang write(int word) {
+    for (int i = 0; i < wordSize; i++) {
+      int bit = word >>> (lsbFirst ? i : wordSize - 1 - i) & 1;
+      step(state & CS | (bit != 0 ? DATA : 0), clockLow); // falling clock and next data bit in one write
+      step(state | CLK, clockHigh);
+    }
+    return this;
+  }
+
+  /**
+   * Releases the data line high and clocks the words in, the device drives the data line.
+   */
+  public BitBang read(int words) {
+    step(state | DATA, 0);
+    for (int i = 0; i < words * wordSize; i++) {
+      step(state & ~CLK | SAMPLE, clockLow);
+      step(state | CLK, clockHigh);
+    }
+    return this;
+  }
+
+  /**
+   * Ends the frame.
+   */
+  public BitBang deselect() {
+    if ((state & CLK) != idle) step(state & ~CLK | idle, csHold);
+    step(state | CS, csHigh);
+    return this;
+  }
+
+  /**
+   * @return number of steps in the program
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Runs and clears the program.
+   */
+  public void run() {
+    run(null);
+  }
+
+  /**
+   * Runs and clears the program.
+   * @param input words read by the program
+   */
+  public void run(int[] input) {
+    int[] steps = this.steps;
+    long setCost = delay.getSetCost();
+    long nanoTime = System.nanoTime();
+    long ready = nanoTime; // the next write can change a line
+    int bits = 0;
+    for (int i = 0; i < size; i++) {
+      int step = steps[i];
+      while (nanoTime - ready < 0) {
+        Thread.onSpinWait();
+        nanoTime = System.nanoTime();
+      }
+      group.set(step & LINES);
+      int wait = step >>> WAIT_SHIFT;
+      if (wait > setCost) { // the write alone covers short waits
+        nanoTime = System.nanoTime();
+        ready = nanoTime + wait - setCost;
+      }
+      if ((step & SAMPLE) != 0) {
+        while (nanoTime - ready < 0) {
+          Thread.onSpinWait();
+          nanoTime = System.nanoTime();
+        }
+        int word = bits / wordSize;
+        int shift = lsbFirst ? bits % wordSize : wordSize - 1 - bits % wordSize;
+        if (bits % wordSize == 0) input[word] = 0;
+        if (data.get()) input[word] |= 1 << shift;
+        bits++;
+      }
+    }
+    while (nanoTime - ready < 0) {
+      Thread.onSpinWait();
+      nanoTime = System.nanoTime();
+    }
+    size = 0;
+  }
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2025 Aleksei Balan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ab.gpio.driver;
+
+import java.nio.ByteBuffer;
+
+/**
+ * SPI transport on bit banged pins, all messages are compiled to one program and sent in one run.
+ */
+public class BitBangSpi implements Spi {
+  private final BitBang bus;
+
+  /**
+   * @param bus 8 bit words, most significant bit first
+   */
+  public BitBangSpi(BitBang bus) {
+    this.bus = bus;
+  }
+
+  @Override
+  public BitBangSpi open() {
+    bus.open();
+    return this;
+  }
+
+  @Override
+  public void write(ByteBuffer buffer, int messageSize) {
+    while (buffer.hasRemaining()) {
+      bus.select();
+      for (int i = 0; i < messageSize && buffer.hasRemaining(); i++) bus.write(buffer.get());
+      bus.deselect();
+    }
+    bus.run();
+  }
+
+  @Override
+  public void close() {
+    bus.close();
+  }
+
+}
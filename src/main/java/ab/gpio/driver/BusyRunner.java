@@ -17,36 +17,366 @@
 
 package ab.gpio.driver;
 
-import java.util.Set;
-import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * Runs BusyRunnable objects in a busy loop. Runnables added with a period run when their deadline is due,
+ * the others run on every loop iteration. With several threads the average run() time of every runnable
+ * is measured and a low priority thread moves runnables between threads to keep the loop periods even.
+ * Loop and runnable statistics are collected when enabled with {@link #setStatistics(boolean)}.
+ */
 public class BusyRunner implements AutoCloseable {
 
-  private final Set<BusyRunnable> runnables = new CopyOnWriteArraySet<>();
-  private boolean open;
+  private static final long BALANCE_PERIOD_NS = 100_000_000;
+  private static final double BALANCE_GAIN = 0.9; // new assignment must shorten the longest loop by 10%
+  private final int threads;
+  private final Map<BusyRunnable, Task> tasks = new LinkedHashMap<>();
+  private volatile Task[][] workers;
+  private final Loop[] loops;
+  private volatile boolean statistics;
+  private volatile int statisticsEpoch; // incremented when enabled, the threads reset their statistics
+  private volatile boolean open;
+  private volatile Thread[] running = new Thread[0]; // workers and the balancer
+
+  public BusyRunner() {
+    this(1);
+  }
+
+  public BusyRunner(int threads) {
+    if (threads <= 0) throw new IllegalArgumentException("threads " + threads);
+    this.threads = threads;
+    this.workers = new Task[threads][0];
+    this.loops = new Loop[threads];
+    for (int i = 0; i < threads; i++) loops[i] = new Loop();
+  }
+
+  private static class Loop {
+    final Histogram period = new Histogram();
+    long count;
+    long last;
+    int epoch;
+    volatile long start; // statistics start of this thread, 0 before they were enabled
+    Schedule schedule = new Schedule(new Task[0]);
+  }
+
+  private static class Task {
+    final BusyRunnable runnable;
+    final long period;
+    final AtomicBoolean running = new AtomicBoolean(); // while moved, the task can be in two threads for a loop
+    volatile long cost; // average run() time, ns
+    volatile long deadline;
+    int worker;
+    int epoch;
+    long runs;
+    long total;
+    long worst;
+
+    Task(BusyRunnable runnable, long period) {
+      this.runnable = runnable;
+      this.period = period;
+      this.deadline = System.nanoTime();
+    }
+  }
+
+  /**
+   * Tasks of one thread: the ones without period run on every loop iteration, the rest are in a deadline heap.
+   */
+  private static class Schedule {
+    final Task[] tasks;
+    final Task[] always;
+    final Task[] heap;
+
+    Schedule(Task[] tasks) {
+      this.tasks = tasks;
+      int n = 0;
+      for (Task task : tasks) if (task.period == 0) n++;
+      always = new Task[n];
+      heap = new Task[tasks.length - n];
+      int a = 0;
+      int h = 0;
+      for (Task task : tasks) if (task.period == 0) always[a++] = task; else heap[h++] = task;
+      for (int i = heap.length / 2 - 1; i >= 0; i--) siftDown(i);
+    }
+
+    void siftDown(int i) {
+      Task task = heap[i];
+      while (true) {
+        int child = 2 * i + 1;
+        if (child >= heap.length) break;
+        if (child + 1 < heap.length && heap[child + 1].deadline - heap[child].deadline < 0) child++;
+        if (task.deadline - heap[child].deadline <= 0) break;
+        heap[i] = heap[child];
+        i = child;
+      }
+      heap[i] = task;
+    }
+
+    /**
+     * Moves the deadline of the heap top one period forward, or one period from now if the task fell behind.
+     */
+    void reschedule(long nanoTime) {
+      Task task = heap[0];
+      long deadline = task.deadline + task.period;
+      task.deadline = deadline - nanoTime <= 0 ? nanoTime + task.period : deadline;
+      siftDown(0);
+    }
+  }
 
   public void add(BusyRunnable r) {
-    runnables.add(r);
+    add(r, 0);
+  }
+
+  /**
+   * @param period run() period in nanoseconds, 0 to run on every loop iteration
+   */
+  public synchronized void add(BusyRunnable r, long period) {
+    if (period < 0) throw new IllegalArgumentException("period " + period);
+    if (tasks.containsKey(r)) return;
+    long[] load = new long[threads];
+    for (Task task : tasks.values()) load[task.worker] += task.cost;
+    Task task = new Task(r, period);
+    for (int i = 1; i < threads; i++) if (load[i] < load[task.worker]) task.worker = i;
+    tasks.put(r, task);
+    publish();
   }
 
-  public void remove(BusyRunnable r) {
-    runnables.remove(r);
+  public synchronized void remove(BusyRunnable r) {
+    if (tasks.remove(r) != null) publish();
   }
 
-  protected void run() {
-    while (open) for (BusyRunnable r : runnables) r.run();
+  private void publish() {
+    List<List<Task>> lists = new ArrayList<>();
+    for (int i = 0; i < threads; i++) lists.add(new ArrayList<>());
+    for (Task task : tasks.values()) lists.get(task.worker).add(task);
+    Task[][] workers = new Task[threads][];
+    for (int i = 0; i < threads; i++) workers[i] = lists.get(i).toArray(new Task[0]);
+    this.workers = workers;
+  }
+
+  /**
+   * Longest processing time first: the most expensive runnables go first, each to the least loaded thread.
+   * @return thread index for every cost
+   */
+  static int[] balance(long[] costs, int threads) {
+    Integer[] order = new Integer[costs.length];
+    for (int i = 0; i < order.length; i++) order[i] = i;
+    Arrays.sort(order, (a, b) -> Long.compare(costs[b], costs[a]));
+    long[] load = new long[threads];
+    int[] assignment = new int[costs.length];
+    for (int i : order) {
+      int worker = 0;
+      for (int j = 1; j < threads; j++) if (load[j] < load[worker]) worker = j;
+      assignment[i] = worker;
+      load[worker] += costs[i];
+    }
+    return assignment;
+  }
+
+  private static long maxLoad(long[] costs, int[] assignment, int threads) {
+    long[] load = new long[threads];
+    for (int i = 0; i < costs.length; i++) load[assignment[i]] += costs[i];
+    return Arrays.stream(load).max().orElse(0);
+  }
+
+  synchronized void balance() {
+    Task[] tasks = this.tasks.values().toArray(new Task[0]);
+    long[] costs = new long[tasks.length];
+    int[] assignment = new int[tasks.length];
+    for (int i = 0; i < tasks.length; i++) {
+      costs[i] = tasks[i].cost;
+      assignment[i] = tasks[i].worker;
+    }
+    int[] balanced = balance(costs, threads);
+    if (maxLoad(costs, balanced, threads) >= maxLoad(costs, assignment, threads) * BALANCE_GAIN) return;
+    for (int i = 0; i < tasks.length; i++) tasks[i].worker = balanced[i];
+    publish();
+  }
+
+  /**
+   * @param epoch statistics epoch, 0 if statistics are disabled
+   */
+  private boolean run(Task task, boolean measured, int epoch, long nanoTime) {
+    if (!measured) {
+      task.runnable.run();
+      return false;
+    }
+    if (!task.running.compareAndSet(false, true)) return false;
+    task.runnable.run();
+    long time = System.nanoTime() - nanoTime;
+    task.cost += time - task.cost >> 4;
+    if (epoch != 0) {
+      if (task.epoch != epoch) {
+        task.runs = 0;
+        task.total = 0;
+        task.worst = 0;
+        task.epoch = epoch;
+      }
+      task.runs++;
+      task.total += time;
+      if (time > task.worst) task.worst = time;
+    }
+    task.running.set(false);
+    return true;
+  }
+
+  protected void run(int worker) {
+    while (open) loop(worker);
+  }
+
+  /**
+   * One iteration of the busy loop.
+   */
+  void loop(int worker) {
+    boolean timed = threads > 1;
+    Loop loop = loops[worker];
+    Task[] tasks = workers[worker];
+    Schedule schedule = loop.schedule;
+    if (tasks != schedule.tasks) schedule = loop.schedule = new Schedule(tasks);
+    int epoch = this.statistics ? statisticsEpoch : 0;
+    boolean measured = timed || epoch != 0;
+    long nanoTime = measured ? System.nanoTime() : 0;
+    if (epoch != 0) {
+      if (loop.epoch != epoch) {
+        loop.period.reset();
+        loop.count = 0;
+        loop.last = 0;
+        loop.epoch = epoch;
+        loop.start = nanoTime; // volatile write publishes the reset
+      }
+      if (loop.last != 0) loop.period.record(nanoTime - loop.last);
+      loop.last = nanoTime;
+      loop.count++;
+    }
+    for (Task task : schedule.always) if (run(task, measured, epoch, nanoTime)) nanoTime = System.nanoTime();
+    Task[] heap = schedule.heap;
+    if (heap.length > 0) {
+      if (!measured) nanoTime = System.nanoTime();
+      while (heap[0].deadline - nanoTime <= 0) {
+        if (run(heap[0], measured, epoch, nanoTime)) nanoTime = System.nanoTime();
+        schedule.reschedule(nanoTime);
+      }
+    }
+  }
+
+  private void balanceRun() {
+    while (open) {
+      LockSupport.parkNanos(this, BALANCE_PERIOD_NS);
+      if (open) balance();
+    }
+  }
+
+  /**
+   * Enabling resets the statistics, every thread does it on its next loop iteration.
+   * When disabled, the cost is one volatile read per loop iteration.
+   */
+  public synchronized void setStatistics(boolean statistics) {
+    if (statistics && !this.statistics) statisticsEpoch++;
+    this.statistics = statistics;
+  }
+
+  /**
+   * @return statistics since they were enabled, values are approximate as they are read while being written
+   */
+  public synchronized Snapshot snapshot() {
+    long nanoTime = System.nanoTime();
+    int epoch = statisticsEpoch;
+    double[] loopsPerSecond = new double[threads];
+    Histogram period = new Histogram();
+    for (int i = 0; i < threads; i++) {
+      Loop loop = loops[i];
+      long start = loop.start;
+      if (start == 0 || loop.epoch != epoch) continue; // not started or not reset yet
+      loopsPerSecond[i] = nanoTime - start <= 0 ? 0 : loop.count * 1e9 / (nanoTime - start);
+      period.add(loop.period);
+    }
+    List<RunnableStatistics> runnables = new ArrayList<>();
+    for (Task task : tasks.values()) {
+      boolean current = task.epoch == epoch && epoch != 0;
+      runnables.add(new RunnableStatistics(task.runnable, task.worker, current ? task.runs : 0,
+          current ? task.total : 0, current ? task.worst : 0));
+    }
+    return new Snapshot(loopsPerSecond, period, runnables);
+  }
+
+  public static class RunnableStatistics {
+    public final BusyRunnable runnable;
+    public final int thread;
+    public final long runs;
+    public final long totalNanos;
+    public final long worstNanos;
+
+    RunnableStatistics(BusyRunnable runnable, int thread, long runs, long totalNanos, long worstNanos) {
+      this.runnable = runnable;
+      this.thread = thread;
+      this.runs = runs;
+      this.totalNanos = totalNanos;
+      this.worstNanos = worstNanos;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s thread %d, runs %d, total %d ns, mean %d ns, worst %d ns", runnable, thread, runs,
+          totalNanos, runs == 0 ? 0 : totalNanos / runs, worstNanos);
+    }
+  }
+
+  public static class Snapshot {
+    public final double[] loopsPerSecond; // per thread
+    public final Histogram period; // loop period of all threads, ns
+    public final List<RunnableStatistics> runnables;
+
+    Snapshot(double[] loopsPerSecond, Histogram period, List<RunnableStatistics> runnables) {
+      this.loopsPerSecond = loopsPerSecond;
+      this.period = period;
+      this.runnables = runnables;
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder s = new StringBuilder("loops per second");
+      for (double v : loopsPerSecond) s.append(String.format(" %.0f", v));
+      s.append("\nperiod ns ").append(period);
+      for (RunnableStatistics runnable : runnables) s.append("\n").append(runnable);
+      return s.toString();
+    }
   }
 
   public BusyRunner open() {
     if (open) throw new IllegalStateException();
     open = true;
-    new Thread(this::run).start();
+    Thread[] running = new Thread[threads > 1 ? threads + 1 : threads];
+    for (int i = 0; i < threads; i++) {
+      int worker = i;
+      running[i] = new Thread(() -> run(worker));
+    }
+    if (threads > 1) {
+      Thread balancer = new Thread(this::balanceRun);
+      balancer.setPriority(Thread.MIN_PRIORITY);
+      running[threads] = balancer;
+    }
+    for (Thread thread : running) thread.start();
+    this.running = running;
     return this;
   }
 
+  /**
+   * Stops the threads and waits for them, a runnable can close the runner from its own thread.
+   */
   @Override
   public void close() {
     open = false;
+    for (Thread thread : running) LockSupport.unpark(thread);
+    try {
+      for (Thread thread : running) if (thread != Thread.currentThread()) thread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
   }
 
 }
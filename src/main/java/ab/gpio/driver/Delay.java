@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2025 Aleksei Balan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ab.gpio.driver;
+
+import ab.gpio.Pin;
+
+/**
+ * Busy wait between pin writes of bit banged protocols, calibrated for the pin backend.
+ * The time between two line changes is at least the cost of one write, so the wait after a write is shortened
+ * by the minimal measured cost of Pin.set and skipped when the write alone is longer than the required time.
+ */
+public class Delay {
+  private static final int WARMUP = 10_000; // compiled code is faster, interpreted cost would skip needed waits
+  private static final int SAMPLES = 256;
+  private final long nanoTimeCost;
+  private final long setCost;
+  private final long getCost;
+
+  public Delay(long nanoTimeCost, long setCost, long getCost) {
+    this.nanoTimeCost = nanoTimeCost;
+    this.setCost = setCost;
+    this.getCost = getCost;
+  }
+
+  /**
+   * Measures the costs by writing low to the opened output pin, the line does not toggle after the first write.
+   */
+  public static Delay calibrate(Pin pin) {
+    for (int i = 0; i < WARMUP; i++) {
+      System.nanoTime();
+      pin.set(false);
+      pin.get();
+    }
+    long nanoTime = System.nanoTime();
+    for (int i = 0; i < SAMPLES; i++) System.nanoTime();
+    long nanoTimeCost = (System.nanoTime() - nanoTime) / (SAMPLES + 1);
+    long setCost = Long.MAX_VALUE;
+    long getCost = Long.MAX_VALUE;
+    for (int i = 0; i < SAMPLES; i++) {
+      long t0 = System.nanoTime();
+      pin.set(false);
+      long t1 = System.nanoTime();
+      pin.get();
+      long t2 = System.nanoTime();
+      setCost = Math.min(setCost, t1 - t0);
+      getCost = Math.min(getCost, t2 - t1);
+    }
+    return new Delay(nanoTimeCost, Math.max(0, setCost - nanoTimeCost), Math.max(0, getCost - nanoTimeCost));
+  }
+
+  public long getNanoTimeCost() {
+    return nanoTimeCost;
+  }
+
+  public long getSetCost() {
+    return setCost;
+  }
+
+  public long getGetCost() {
+    return getCost;
+  }
+
+  /**
+   * Waits until the next write can change a line ns after the last write.
+   */
+  public void afterSet(long ns) {
+    if (ns > setCost) spin(ns - setCost);
+  }
+
+  /**
+   * Waits ns, not shortened.
+   */
+  public static void spin(long ns) {
+    if (ns <= 0) return;
+    long end = System.nanoTime() + ns;
+    while (System.nanoTime() - end < 0) Thread.onSpinWait();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("nanoTime %d ns, set %d ns, get %d ns", nanoTimeCost, setCost, getCost);
+  }
+
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2025 Aleksei Balan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ab.gpio.driver;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded ring buffer of int events with nanosecond time, for one producer thread and one consumer thread.
+ * The producer never blocks and never allocates, events that do not fit are counted and dropped.
+ * The consumer parks when the ring is empty.
+ */
+public class EventRing {
+  private static final int SPINS = 100;
+  private final int[] events;
+  private final long[] times;
+  private final int mask;
+  private final AtomicLong head = new AtomicLong(); // next event to take, written by consumer
+  private final AtomicLong tail = new AtomicLong(); // next event to offer, written by producer
+  private volatile long overflow;
+  private volatile Thread waiting;
+  private volatile boolean closed;
+  private long time;
+
+  /**
+   * @param capacity rounded up to power of two
+   */
+  public EventRing(int capacity) {
+    if (capacity <= 0 || capacity > 1 << 30) throw new IllegalArgumentException("capacity " + capacity);
+    int size = 1;
+    while (size < capacity) size <<= 1;
+    events = new int[size];
+    times = new long[size];
+    mask = size - 1;
+  }
+
+  public int capacity() {
+    return events.length;
+  }
+
+  /**
+   * Producer side.
+   * @return false if the ring is full
+   */
+  public boolean offer(int event, long time) {
+    long t = tail.get();
+    if (t - head.get() >= events.length) {
+      overflow++;
+      return false;
+    }
+    int i = (int) t & mask;
+    events[i] = event;
+    times[i] = time;
+    tail.set(t + 1); // volatile write, ordered before reading the waiting consumer
+    Thread waiting = this.waiting;
+    if (waiting != null) LockSupport.unpark(waiting);
+    return true;
+  }
+
+  /**
+   * @return number of events dropped because the ring was full
+   */
+  public long getOverflow() {
+    return overflow;
+  }
+
+  public boolean isEmpty() {
+    return tail.get() == head.get();
+  }
+
+  /**
+   * Consumer side, waits until an event is available.
+   * @return false if the ring was closed or the thread interrupted while waiting
+   */
+  public boolean await() {
+    for (int i = 0; isEmpty(); i++) {
+      if (closed || Thread.interrupted()) return false;
+      if (i < SPINS) {
+        Thread.onSpinWait();
+        continue;
+      }
+      waiting = Thread.currentThread();
+      if (isEmpty() && !closed) LockSupport.park(this);
+      waiting = null;
+    }
+    return true;
+  }
+
+  /**
+   * Consumer side, takes the next event. The ring must not be empty.
+   */
+  public int take() {
+    long h = head.get();
+    if (h == tail.get()) throw new IllegalStateException("empty");
+    int i = (int) h & mask;
+    int event = events[i];
+    time = times[i];
+    head.lazySet(h + 1);
+    return event;
+  }
+
+  /**
+   * Consumer side.
+   * @return time of the last taken event
+   */
+  public long time() {
+    return time;
+  }
+
+  /**
+   * Wakes up the consumer, {@link #await()} returns false until the ring is reset.
+   */
+  public void close() {
+    closed = true;
+    Thread waiting = this.waiting;
+    if (waiting != null) LockSupport.unpark(waiting);
+  }
+
+  /**
+   * Drops all events and reopens the ring. Neither producer nor consumer can be active.
+   */
+  public void reset() {
+    head.set(tail.get());
+    closed = false;
+  }
+
+}
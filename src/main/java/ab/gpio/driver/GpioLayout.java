@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2025 Aleksei Balan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ab.gpio.driver;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Register layout of a memory mapped GPIO block. Offsets are in bytes from the start of the mapping,
+ * registers are 32 bit wide and line n is the bit n % 32 of its register.
+ */
+public interface GpioLayout {
+  /**
+   * @return size of the register block to map
+   */
+  int size();
+
+  int lines();
+
+  /**
+   * @return the register where writing 1 drives the line high
+   */
+  int setRegister(int line);
+
+  /**
+   * @return the register where writing 1 drives the line low
+   */
+  int clearRegister(int line);
+
+  /**
+   * @return the register with the level of the line
+   */
+  int levelRegister(int line);
+
+  /**
+   * Configures the line as input or output. Not thread safe, the register can be shared with other lines.
+   */
+  void setOutput(ByteBuffer registers, int line, boolean output);
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2025 Aleksei Balan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ab.gpio.driver;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * GPIO registers mapped to memory. Set, clear and level operations are plain memory access, no system calls.
+ * sudo usermod -aG gpio $USER
+ * ls -l /dev/gpiomem
+ */
+public class GpioMemory implements AutoCloseable {
+  public static final String GPIOMEM = "/dev/gpiomem";
+  private final Path path;
+  private final GpioLayout layout;
+  private FileChannel channel;
+  private MappedByteBuffer registers;
+
+  public GpioMemory(GpioLayout layout) {
+    this(Paths.get(GPIOMEM), layout);
+  }
+
+  /**
+   * @param path the device to map, or any file of at least {@link GpioLayout#size()} bytes
+   */
+  public GpioMemory(Path path, GpioLayout layout) {
+    this.path = path;
+    this.layout = layout;
+  }
+
+  public GpioLayout getLayout() {
+    return layout;
+  }
+
+  public GpioMemory open() {
+    if (channel != null) throw new IllegalStateException("not closed");
+    try {
+      channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      registers = channel.map(FileChannel.MapMode.READ_WRITE, 0, layout.size());
+    } catch (IOException e) {
+      close();
+      throw new UncheckedIOException(path.toString(), e);
+    }
+    registers.order(ByteOrder.LITTLE_ENDIAN);
+    return this;
+  }
+
+  @Override
+  public void close() {
+    FileChannel channel = this.channel;
+    if (channel == null) return;
+    registers = null;
+    this.channel = null;
+    try {
+      channel.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException(path.toString(), e);
+    }
+  }
+
+  public synchronized void setOutput(int line, boolean output) {
+    if (line < 0 || line >= layout.lines()) throw new IllegalArgumentException("line " + line);
+    layout.setOutput(registers, line, output);
+  }
+
+  /**
+   * Writes the mask to the register, for set and clear registers one write changes all lines of the mask.
+   */
+  public void write(int register, int mask) {
+    registers.putInt(register, mask);
+  }
+
+  public int read(int register) {
+    return registers.getInt(register);
+  }
+
+  public void set(int line, boolean v) {
+    registers.putInt(v ? layout.setRegister(line) : layout.clearRegister(line), 1 << (line & 31));
+  }
+
+  public boolean get(int line) {
+    return (registers.getInt(layout.levelRegister(line)) & 1 << (line & 31)) != 0;
+  }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2025 Aleksei Balan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ab.gpio.driver;
+
+import java.util.Arrays;
+
+/**
+ * Fixed memory histogram of non-negative long values with 1/16 relative precision, values below 32 are exact.
+ * Single writer, readers on other threads get approximate results while it is written.
+ */
+public class Histogram {
+  public static final int BUCKETS = 960;
+  protected final long[] counts = new long[BUCKETS];
+  protected long count;
+  protected long sum;
+  protected long min = Long.MAX_VALUE;
+  protected long max;
+
+  static int index(long value) {
+    if (value < 32) return (int) Math.max(0, value);
+    int shift = 59 - Long.numberOfLeadingZeros(value);
+    return (shift + 1 << 4) + (int) (value >>> shift) - 16;
+  }
+
+  /**
+   * @return the highest value that goes to the bucket
+   */
+  static long highest(int index) {
+    if (index < 32) return index;
+    int shift = (index >> 4) - 1;
+    return ((long) (index & 15) + 17 << shift) - 1;
+  }
+
+  public void record(long value) {
+    counts[index(value)]++;
+    count++;
+    sum += value;
+    if (value < min) min = value;
+    if (value > max) max = value;
+  }
+
+  public void reset() {
+    Arrays.fill(counts, 0);
+    count = 0;
+    sum = 0;
+    min = Long.MAX_VALUE;
+    max = 0;
+  }
+
+  /**
+   * Adds the values of other histogram to this one.
+   */
+  public void add(Histogram histogram) {
+    for (int i = 0; i < BUCKETS; i++) counts[i] += histogram.counts[i];
+    count += histogram.count;
+    sum += histogram.sum;
+    min = Math.min(min, histogram.min);
+    max = Math.max(max, histogram.max);
+  }
+
+  public Histogram copy() {
+    Histogram histogram = new Histogram();
+    histogram.add(this);
+    return histogram;
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  public long getMin() {
+    return count == 0 ? 0 : min;
+  }
+
+  public long getMax() {
+    return max;
+  }
+
+  public double getMean() {
+    return count == 0 ? 0 : (double) sum / count;
+  }
+
+  /**
+   * @param percentile 0-100
+   * @return the value that percentile of recorded values are less or equal to, within the histogram precision
+   */
+  public long getValueAtPercentile(double percentile) {
+    long rank = (long) Math.ceil(Math.min(Math.max(0, percentile), 100) / 100 * count);
+    long n = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      n += counts[i];
+      if (n >= Math.max(1, rank)) return Math.min(highest(i), max);
+    }
+    return max;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("count %d, min %d, p50 %d, p99 %d, p99.9 %d, max %d", count, getMin(),
+        getValueAtPercentile(50), getValueAtPercentile(99), getValueAtPercentile(99.9), max);
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2025 Aleksei Balan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ab.gpio.driver;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed memory latency recorder. Recording is lock free and can be done from several threads,
+ * {@link #interval()} returns the values recorded since the previous call.
+ * Values go to the active one of two recordings, interval() swaps them and waits for the writers
+ * of the old one to finish, so every interval is consistent (the writer reader phaser of HdrHistogram Recorder).
+ */
+public class LatencyRecorder {
+  private final AtomicLong total = new AtomicLong();
+  private volatile Recording active = new Recording();
+  private Recording inactive = new Recording();
+  private final AtomicLong startEpoch = new AtomicLong();
+  private final AtomicLong evenEndEpoch = new AtomicLong();
+  private final AtomicLong oddEndEpoch = new AtomicLong(Long.MIN_VALUE);
+  private long intervalStart = System.nanoTime();
+
+  private static class Recording {
+    final AtomicLongArray counts = new AtomicLongArray(Histogram.BUCKETS);
+    final AtomicLong count = new AtomicLong();
+    final AtomicLong sum = new AtomicLong();
+    final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    final AtomicLong max = new AtomicLong();
+
+    void record(long nanos) {
+      counts.incrementAndGet(Histogram.index(nanos));
+      count.incrementAndGet();
+      sum.addAndGet(nanos);
+      long v;
+      while (nanos < (v = min.get()) && !min.compareAndSet(v, nanos)) ;
+      while (nanos > (v = max.get()) && !max.compareAndSet(v, nanos)) ;
+    }
+
+    /**
+     * Moves the values to the histogram, there must be no writers.
+     */
+    void moveTo(Histogram histogram) {
+      for (int i = 0; i < Histogram.BUCKETS; i++) histogram.counts[i] = counts.getAndSet(i, 0);
+      histogram.count = count.getAndSet(0);
+      histogram.sum = sum.getAndSet(0);
+      histogram.min = min.getAndSet(Long.MAX_VALUE);
+      histogram.max = max.getAndSet(0);
+    }
+  }
+
+  public void record(long nanos) {
+    long epoch = startEpoch.getAndIncrement();
+    active.record(nanos);
+    (epoch < 0 ? oddEndEpoch : evenEndEpoch).getAndIncrement();
+    total.incrementAndGet();
+  }
+
+  /**
+   * @return number of values recorded since creation
+   */
+  public long getCount() {
+    return total.get();
+  }
+
+  /**
+   * Waits until the writers that started before the call are done.
+   */
+  private void flipPhase() {
+    boolean nextPhaseIsEven = startEpoch.get() < 0;
+    long initialStartValue = nextPhaseIsEven ? 0 : Long.MIN_VALUE;
+    (nextPhaseIsEven ? evenEndEpoch : oddEndEpoch).lazySet(initialStartValue);
+    long startValueAtFlip = startEpoch.getAndSet(initialStartValue);
+    AtomicLong endEpoch = nextPhaseIsEven ? oddEndEpoch : evenEndEpoch;
+    while (endEpoch.get() != startValueAtFlip) Thread.yield();
+  }
+
+  public synchronized Interval interval() {
+    Recording recording = active;
+    active = inactive;
+    inactive = recording;
+    flipPhase();
+    long nanoTime = System.nanoTime();
+    Interval interval = new Interval(nanoTime - intervalStart);
+    intervalStart = nanoTime;
+    recording.moveTo(interval);
+    return interval;
+  }
+
+  public static class Interval extends Histogram {
+    private final long nanos;
+
+    Interval(long nanos) {
+      this.nanos = nanos;
+    }
+
+    /**
+     * @return length of the interval, ns
+     */
+    public long getNanos() {
+      return nanos;
+    }
+
+    /**
+     * @return recorded values per second, frames per second for frame latencies
+     */
+    public double getRate() {
+      return count * 1e9 / nanos;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%.1f/s, %s", getRate(), super.toString());
+    }
+  }
+
+}
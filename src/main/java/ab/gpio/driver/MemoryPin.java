@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2025 Aleksei Balan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ab.gpio.driver;
+
+import ab.gpio.Pin;
+import ab.gpio.PinGroup;
+
+/**
+ * GPIO pin on the memory mapped registers. Groups of memory pins change all lines with one register write,
+ * lines going low first and then lines going high.
+ */
+public class MemoryPin extends Pin {
+  private final GpioMemory memory;
+  private final int line;
+  private final boolean readOnly;
+  private boolean open;
+
+  public MemoryPin(GpioMemory memory, int line) {
+    this(memory, line, false);
+  }
+
+  public MemoryPin(GpioMemory memory, int line, boolean readOnly) {
+    super(-1, line, readOnly);
+    this.memory = memory;
+    this.line = line;
+    this.readOnly = readOnly;
+  }
+
+  @Override
+  public MemoryPin open() {
+    if (open) throw new IllegalStateException("not closed");
+    if (!readOnly) memory.set(line, false);
+    memory.setOutput(line, !readOnly);
+    open = true;
+    return this;
+  }
+
+  @Override
+  public void close() {
+    if (!open) return;
+    open = false;
+    memory.setOutput(line, false);
+  }
+
+  @Override
+  public void set(boolean v) {
+    if (readOnly) throw new IllegalStateException();
+    memory.set(line, v);
+  }
+
+  @Override
+  public boolean get() {
+    return memory.get(line);
+  }
+
+  @Override
+  protected PinGroup newGroup(Pin[] pins) {
+    for (Pin pin : pins) {
+      if (!(pin instanceof MemoryPin) || ((MemoryPin) pin).memory != memory) return super.newGroup(pins);
+    }
+    return new Group(memory, pins);
+  }
+
+  private static class Group extends PinGroup {
+    private final GpioMemory memory;
+    private final int[] bank;
+    private final int[] bit;
+    private final int[] setRegister;
+    private final int[] clearRegister;
+    private final int[] high;
+    private final int[] low;
+    private int readOnly;
+
+    Group(GpioMemory memory, Pin[] pins) {
+      super(pins);
+      this.memory = memory;
+      GpioLayout layout = memory.getLayout();
+      bank = new int[pins.length];
+      bit = new int[pins.length];
+      int[] registers = new int[pins.length];
+      int banks = 0;
+      for (int i = 0; i < pins.length; i++) {
+        MemoryPin pin = (MemoryPin) pins[i];
+        int register = layout.setRegister(pin.line);
+        int j = 0;
+        while (j < banks && registers[j] != register) j++;
+        if (j == banks) registers[banks++] = register;
+        bank[i] = j;
+        bit[i] = 1 << (pin.line & 31);
+        if (pin.readOnly) readOnly |= 1 << i;
+      }
+      setRegister = new int[banks];
+      clearRegister = new int[banks];
+      for (int i = 0; i < pins.length; i++) {
+        int line = ((MemoryPin) pins[i]).line;
+        setRegister[bank[i]] = layout.setRegister(line);
+        clearRegister[bank[i]] = layout.clearRegister(line);
+      }
+      high = new int[banks];
+      low = new int[banks];
+    }
+
+    @Override
+    protected void write(int mask, int values) {
+      if ((mask & readOnly) != 0) throw new IllegalStateException();
+      for (int m = mask; m != 0; m &= m - 1) {
+        int i = Integer.numberOfTrailingZeros(m);
+        if ((values >>> i & 1) != 0) high[bank[i]] |= bit[i]; else low[bank[i]] |= bit[i];
+      }
+      for (int j = 0; j < low.length; j++) {
+        if (low[j] != 0) memory.write(clearRegister[j], low[j]);
+        low[j] = 0;
+      }
+      for (int j = 0; j < high.length; j++) {
+        if (high[j] != 0) memory.write(setRegister[j], high[j]);
+        high[j] = 0;
+      }
+    }
+  }
+
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2025 Aleksei Balan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ab.gpio.driver;
+
+import java.nio.ByteBuffer;
+
+/**
+ * SPI transport, write only. Chip select is active for one message and released between messages.
+ */
+public interface Spi extends AutoCloseable {
+
+  /**
+   * @return {@code this} for fluid chaining
+   */
+  Spi open();
+
+  /**
+   * Sends the bytes from position to limit as messages of messageSize bytes, the position is moved to the limit.
+   * Transports that can release chip select between messages send all of them in one call.
+   */
+  void write(ByteBuffer buffer, int messageSize);
+
+  @Override
+  void close();
+}
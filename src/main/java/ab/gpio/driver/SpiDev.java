@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2025 Aleksei Balan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ab.gpio.driver;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * SPI device /dev/spidevB.C, a message is one write() to the device, a transfer with chip select active.
+ * The kernel can not batch several messages with plain write(), it takes the SPI_IOC_MESSAGE ioctl,
+ * so there is one write per message. The clock is spi-max-frequency of the device tree node.
+ * sudo vi /boot/firmware/config.txt
+ * dtparam=spi=on
+ */
+public class SpiDev implements Spi {
+  private final Path path;
+  private FileChannel channel;
+
+  public SpiDev(int bus, int chipSelect) {
+    this(Paths.get("/dev/spidev" + bus + "." + chipSelect));
+  }
+
+  public SpiDev(Path path) {
+    this.path = path;
+  }
+
+  @Override
+  public SpiDev open() {
+    if (channel != null) throw new IllegalStateException("not closed");
+    try {
+      channel = FileChannel.open(path, StandardOpenOption.WRITE);
+    } catch (IOException e) {
+      throw new UncheckedIOException(path.toString(), e);
+    }
+    return this;
+  }
+
+  /**
+   * Direct buffer is written without copy.
+   */
+  @Override
+  public void write(ByteBuffer buffer, int messageSize) {
+    int limit = buffer.limit();
+    try {
+      while (buffer.position() < limit) {
+        buffer.limit(Math.min(buffer.position() + messageSize, limit));
+        while (buffer.hasRemaining()) channel.write(buffer);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(path.toString(), e);
+    } finally {
+      buffer.limit(limit);
+    }
+  }
+
+  @Override
+  public void close() {
+    if (channel == null) return;
+    try {
+      channel.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException(path.toString(), e);
+    } finally {
+      channel = null;
+    }
+  }
+
+}
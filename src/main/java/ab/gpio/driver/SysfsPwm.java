@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2025 Aleksei Balan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ab.gpio.driver;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Hardware PWM channel /sys/class/pwm/pwmchipN/pwmM. Attribute files are kept open, a duty cycle change
+ * is one write without allocation.
+ * sudo vi /boot/firmware/config.txt
+ * dtoverlay=pwm-2chan
+ * sudo usermod -aG gpio $USER
+ */
+public class SysfsPwm implements AutoCloseable {
+  public static final String SYS_CLASS_PWM = "/sys/class/pwm";
+  private static final long EXPORT_TIMEOUT_MS = 1000;
+  private final Path chip;
+  private final Path path;
+  private final int channel;
+  private final ByteBuffer buffer = ByteBuffer.allocateDirect(24);
+  private FileChannel period;
+  private FileChannel dutyCycle;
+  private FileChannel enable;
+  private boolean exported;
+  private long periodNs;
+  private long dutyCycleNs;
+
+  public SysfsPwm(int chip, int channel) {
+    this(Paths.get(SYS_CLASS_PWM), chip, channel);
+  }
+
+  /**
+   * @param root the pwm class directory, /sys/class/pwm
+   */
+  public SysfsPwm(Path root, int chip, int channel) {
+    this.chip = root.resolve("pwmchip" + chip);
+    this.path = this.chip.resolve("pwm" + channel);
+    this.channel = channel;
+  }
+
+  /**
+   * @return true if the chip has the channel
+   */
+  public boolean isPresent() {
+    if (Files.isDirectory(path)) return true;
+    try {
+      return channel < Integer.parseInt(Files.readString(chip.resolve("npwm")).trim());
+    } catch (IOException | NumberFormatException e) {
+      return false;
+    }
+  }
+
+  private static void write(Path path, String s) {
+    try {
+      Files.write(path, s.getBytes());
+    } catch (IOException e) {
+      throw new UncheckedIOException(path.toString(), e);
+    }
+  }
+
+  private static FileChannel openAttribute(Path path) throws IOException {
+    return FileChannel.open(path, StandardOpenOption.WRITE);
+  }
+
+  public SysfsPwm open() {
+    if (period != null) throw new IllegalStateException("not closed");
+    if (!Files.isDirectory(path)) {
+      write(chip.resolve("export"), Integer.toString(channel));
+      exported = true;
+    }
+    try {
+      // udev can change the permissions after the directory is created
+      long timeout = System.currentTimeMillis() + EXPORT_TIMEOUT_MS;
+      while (true) {
+        try {
+          period = openAttribute(path.resolve("period"));
+          dutyCycle = openAttribute(path.resolve("duty_cycle"));
+          enable = openAttribute(path.resolve("enable"));
+          break;
+        } catch (IOException e) {
+          closeAttributes();
+          if (System.currentTimeMillis() > timeout) throw e;
+          Thread.sleep(10);
+        }
+      }
+    } catch (IOException e) {
+      close();
+      throw new UncheckedIOException(path.toString(), e);
+    } catch (InterruptedException e) {
+      close();
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+    periodNs = 0;
+    dutyCycleNs = 0;
+    return this;
+  }
+
+  private void closeAttributes() throws IOException {
+    for (FileChannel channel : new FileChannel[]{period, dutyCycle, enable}) if (channel != null) channel.close();
+    period = null;
+    dutyCycle = null;
+    enable = null;
+  }
+
+  @Override
+  public void close() {
+    try {
+      if (enable != null) write(enable, 0);
+      closeAttributes();
+    } catch (IOException e) {
+      throw new UncheckedIOException(path.toString(), e);
+    } finally {
+      if (exported) write(chip.resolve("unexport"), Integer.toString(channel));
+      exported = false;
+    }
+  }
+
+  /**
+   * Writes decimal number and new line at position 0 of the attribute.
+   */
+  private void write(FileChannel channel, long value) throws IOException {
+    int p = buffer.capacity();
+    buffer.clear();
+    buffer.put(--p, (byte) '\n');
+    do {
+      buffer.put(--p, (byte) ('0' + value % 10));
+      value /= 10;
+    } while (value > 0);
+    buffer.position(p);
+    channel.write(buffer, 0);
+  }
+
+  /**
+   * Duty cycle is reduced first when it is longer than the new period, kernel rejects duty cycle over period.
+   */
+  public void setPeriod(long ns) {
+    try {
+      if (dutyCycleNs > ns) setDutyCycle(ns);
+      write(period, ns);
+      periodNs = ns;
+    } catch (IOException e) {
+      throw new UncheckedIOException(path.toString(), e);
+    }
+  }
+
+  public long getPeriod() {
+    return periodNs;
+  }
+
+  public void setDutyCycle(long ns) {
+    try {
+      write(dutyCycle, ns);
+      dutyCycleNs = ns;
+    } catch (IOException e) {
+      throw new UncheckedIOException(path.toString(), e);
+    }
+  }
+
+  public void setEnabled(boolean enabled) {
+    try {
+      write(enable, enabled ? 1 : 0);
+    } catch (IOException e) {
+      throw new UncheckedIOException(path.toString(), e);
+    }
+  }
+
+}
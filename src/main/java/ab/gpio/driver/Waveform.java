@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2025 Aleksei Balan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ab.gpio.driver;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Capture of line transitions with nanosecond time, like a logic analyzer. The buffer is allocated off-heap once,
+ * recording never allocates, transitions that do not fit are counted and dropped.
+ */
+public class Waveform {
+  private static final int RECORD = 12; // long nanos, int line << 1 | value
+  private final ByteBuffer buffer;
+  private final int capacity;
+  private int size;
+  private long overflow;
+
+  /**
+   * @param capacity number of transitions
+   */
+  public Waveform(int capacity) {
+    if (capacity <= 0 || capacity > Integer.MAX_VALUE / RECORD) {
+      throw new IllegalArgumentException("capacity " + capacity);
+    }
+    this.capacity = capacity;
+    this.buffer = ByteBuffer.allocateDirect(capacity * RECORD).order(ByteOrder.nativeOrder());
+  }
+
+  public int capacity() {
+    return capacity;
+  }
+
+  public synchronized void record(long nanos, int line, boolean value) {
+    if (size == capacity) {
+      overflow++;
+      return;
+    }
+    int position = size++ * RECORD;
+    buffer.putLong(position, nanos);
+    buffer.putInt(position + 8, line << 1 | (value ? 1 : 0));
+  }
+
+  /**
+   * @return number of recorded transitions
+   */
+  public synchronized int size() {
+    return size;
+  }
+
+  /**
+   * @return number of transitions dropped because the buffer was full
+   */
+  public synchronized long getOverflow() {
+    return overflow;
+  }
+
+  public synchronized long getNanos(int i) {
+    return buffer.getLong(index(i));
+  }
+
+  public synchronized int getLine(int i) {
+    return buffer.getInt(index(i) + 8) >> 1;
+  }
+
+  public synchronized boolean getValue(int i) {
+    return (buffer.getInt(index(i) + 8) & 1) != 0;
+  }
+
+  private int index(int i) {
+    if (i < 0 || i >= size) throw new IndexOutOfBoundsException("transition " + i);
+    return i * RECORD;
+  }
+
+  public synchronized void clear() {
+    size = 0;
+    overflow = 0;
+  }
+
+}
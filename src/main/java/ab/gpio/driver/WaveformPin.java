@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2025 Aleksei Balan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ab.gpio.driver;
+
+import ab.gpio.Pin;
+import ab.gpio.PinGroup;
+
+/**
+ * Simulated pin without hardware, every transition is recorded to a waveform. Output is recorded when the value
+ * changes, input is driven by {@link #drive(boolean)}. Groups of pins on one waveform record all lines
+ * with the same time, as one register write would change them.
+ */
+public class WaveformPin extends Pin {
+  private final Waveform waveform;
+  private final int line;
+  private final boolean readOnly;
+  private boolean value;
+  private boolean open;
+
+  public WaveformPin(Waveform waveform, int line) {
+    this(waveform, line, false);
+  }
+
+  public WaveformPin(Waveform waveform, int line, boolean readOnly) {
+    super(-1, line, readOnly);
+    this.waveform = waveform;
+    this.line = line;
+    this.readOnly = readOnly;
+  }
+
+  @Override
+  public WaveformPin open() {
+    if (open) throw new IllegalStateException("not closed");
+    if (!readOnly) value = false;
+    waveform.record(System.nanoTime(), line, value);
+    open = true;
+    return this;
+  }
+
+  @Override
+  public void close() {
+    open = false;
+  }
+
+  @Override
+  public void set(boolean v) {
+    if (readOnly) throw new IllegalStateException();
+    write(v, System.nanoTime());
+  }
+
+  private void write(boolean v, long nanos) {
+    if (!open) throw new IllegalStateException("closed");
+    if (v == value) return;
+    value = v;
+    waveform.record(nanos, line, v);
+  }
+
+  @Override
+  public boolean get() {
+    return value;
+  }
+
+  /**
+   * Simulates the device driving an input line.
+   */
+  public void drive(boolean v) {
+    if (v == value) return;
+    long nanos = System.nanoTime();
+    value = v;
+    if (open) {
+      waveform.record(nanos, line, v);
+      edge(v, nanos);
+    }
+  }
+
+  @Override
+  protected PinGroup newGroup(Pin[] pins) {
+    for (Pin pin : pins) {
+      if (!(pin instanceof WaveformPin) || ((WaveformPin) pin).waveform != waveform) return super.newGroup(pins);
+    }
+    return new Group(pins);
+  }
+
+  private static class Group extends PinGroup {
+    Group(Pin[] pins) {
+      super(pins);
+    }
+
+    @Override
+    protected void write(int mask, int values) {
+      long nanos = System.nanoTime();
+      for (int m = mask; m != 0; m &= m - 1) {
+        int i = Integer.numberOfTrailingZeros(m);
+        WaveformPin pin = (WaveformPin) pins[i];
+        if (pin.readOnly) throw new IllegalStateException();
+        pin.write((values >>> i & 1) != 0, nanos);
+      }
+    }
+  }
+
+}
@@ -17,17 +17,37 @@
 
 package ab.gpio;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.MockedStatic;
 
+import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Properties;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 class GpioSystemTest {
 
+  @TempDir
+  Path tempDir;
+
+  @AfterEach
+  void tearDown() {
+    GpioSystem.setDevicetree(GpioSystem.DEVICETREE_COMPATIBLE);
+    GpioSystem.unregister("test,board");
+  }
+
+  private void devicetree(String compatible) throws IOException {
+    Path path = tempDir.resolve("compatible");
+    Files.writeString(path, compatible);
+    GpioSystem.setDevicetree(path);
+  }
+
   @Test
   void devicetreeCompatible() {
     List<String> compatible;
@@ -39,4 +59,37 @@ class GpioSystemTest {
     assertTrue(compatible.contains("raspberrypi,4-model-b"));
   }
 
+  @Test
+  void compatible() throws IOException {
+    devicetree("raspberrypi,4-model-b\0brcm,bcm2711\0");
+    assertEquals(List.of("raspberrypi,4-model-b", "brcm,bcm2711"), List.copyOf(GpioSystem.getCompatible()));
+    Files.writeString(tempDir.resolve("compatible"), "other\0");
+    assertTrue(GpioSystem.getCompatible().contains("brcm,bcm2711")); // cached
+    assertEquals("4b", GpioSystem.getByDevice(List.of("brcm,bcm2835", "brcm,bcm2711"), List.of("1", "4b"), "?"));
+    assertEquals("?", GpioSystem.getByDevice(List.of("brcm,bcm2835"), List.of("1"), "?"));
+  }
+
+  @Test
+  void profile() throws IOException {
+    devicetree("raspberrypi,4-model-b\0brcm,bcm2711\0");
+    assertEquals("Raspberry Pi 40 pin header", GpioSystem.getProfile().getProperty("name"));
+    assertNull(GpioSystem.getProfile("raspberrypi,4-model-b"));
+    assertEquals("0:21", GpioSystem.getProfile("brcm,bcm2837").getProperty("pin40")); // shared 40 pin profile
+    assertNull(GpioSystem.getProfile("brcm,bcm2835")); // 26 or 40 pin header, depends on the model
+    assertNull(GpioSystem.getProfile("raspberrypi,model-b").getProperty("pin40"));
+    assertEquals("0:0", GpioSystem.getProfile("raspberrypi,model-b").getProperty("pin3"));
+    assertEquals("0:2", GpioSystem.getProfile("raspberrypi,model-b-rev2").getProperty("pin3"));
+    Pin pin = GpioSystem.getPin("pin11");
+    assertNotNull(pin);
+    assertThrows(IllegalArgumentException.class, () -> GpioSystem.getPin("pin1"));
+
+    Properties board = new Properties();
+    board.setProperty("name", "test board");
+    GpioSystem.register("test,board", board);
+    devicetree("test,board\0brcm,bcm2711\0");
+    assertEquals("test board", GpioSystem.getProfile().getProperty("name"));
+    devicetree("unknown\0");
+    assertNull(GpioSystem.getProfile());
+  }
+
 }
@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2025 Aleksei Balan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ab.gpio;
+
+import ab.gpio.driver.Spi;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Max7219Test {
+
+  @Test
+  void update() {
+    int[] writes = new int[1];
+    Max7219 max7219 = new Max7219(new TestPin(writes), new TestPin(writes), new TestPin(writes)).open();
+    writes[0] = 0;
+    int frames = 100;
+    String[] image = {"####....####....####....####....", "....####....####....####....####"};
+    for (int f = 0; f < frames; f++) {
+      for (int y = 0; y < 8; y++) max7219.print(0, y, image[f % 2], 0);
+      max7219.update();
+    }
+    int perFrame = writes[0] / frames;
+    // 512 bits with separate din and clk writes took 3 line writes per bit
+    assertTrue(perFrame < 2.5 * 512, "line writes per frame: " + perFrame);
+    max7219.close();
+  }
+
+  @Test
+  void delta() {
+    Max7219 max7219 = new Max7219(new TestPin(), new TestPin(), new TestPin()).open();
+    long bits = max7219.getBitCount();
+    max7219.update();
+    assertEquals(bits, max7219.getBitCount());
+    max7219.print(9, 2, "#", 0);
+    max7219.update();
+    assertEquals(bits + 64, max7219.getBitCount());
+    // scrolling ticker, one row, every module changes
+    String ticker = "#..#...##..#.#..###.#...#..##.#..#.#";
+    for (int i = 0; i < 4; i++) {
+      max7219.print(0, 5, ticker.substring(i, i + 32), 0);
+      max7219.update();
+    }
+    assertEquals(bits + 5 * 64, max7219.getBitCount());
+    max7219.close();
+  }
+
+  @Test
+  void chain() {
+    int[] perModule = new int[3];
+    int[][] grids = {{4, 1}, {4, 2}, {8, 2}};
+    for (int g = 0; g < grids.length; g++) {
+      int[] writes = new int[1];
+      Max7219 max7219 = new Max7219(new TestPin(writes), new TestPin(writes), new TestPin(writes),
+          grids[g][0], grids[g][1]).open();
+      int n = grids[g][0] * grids[g][1];
+      assertEquals(grids[g][0] * 8, max7219.getSize().width);
+      assertEquals(grids[g][1] * 8, max7219.getSize().height);
+      char[][] image = new char[2][max7219.getSize().width];
+      for (int x = 0; x < image[0].length; x++) {
+        image[0][x] = (x & 4) == 0 ? '#' : '.';
+        image[1][x] = (x & 4) == 0 ? '.' : '#';
+      }
+      long bits = max7219.getBitCount();
+      writes[0] = 0;
+      int frames = 100;
+      for (int f = 0; f < frames; f++) {
+        for (int y = 0; y < max7219.getSize().height; y++) max7219.print(0, y, new String(image[f % 2]), 0);
+        max7219.update();
+      }
+      assertEquals(frames * 8 * 16 * n, max7219.getBitCount() - bits);
+      max7219.close();
+      perModule[g] = writes[0] / frames / n;
+    }
+    // serialization cost is linear in chain length
+    assertEquals(perModule[0], perModule[2], perModule[0] * 0.05);
+  }
+
+  /**
+   * Records the messages as hex strings.
+   */
+  private static class RecordingSpi implements Spi {
+    final List<String> messages = new ArrayList<>();
+    int writes;
+    boolean open;
+
+    @Override
+    public RecordingSpi open() {
+      open = true;
+      return this;
+    }
+
+    @Override
+    public void write(ByteBuffer buffer, int messageSize) {
+      assertTrue(buffer.isDirect());
+      writes++;
+      while (buffer.hasRemaining()) {
+        StringBuilder s = new StringBuilder();
+        for (int i = 0; i < messageSize; i++) s.append(String.format("%02X", buffer.get()));
+        messages.add(s.toString());
+      }
+    }
+
+    @Override
+    public void close() {
+      open = false;
+    }
+  }
+
+  @Test
+  void spi() {
+    RecordingSpi spi = new RecordingSpi();
+    Max7219 max7219 = new Max7219(spi, 2, 1).open();
+    assertEquals("0C010C01", spi.messages.get(spi.messages.size() - 1)); // screen on
+    spi.messages.clear();
+    spi.writes = 0;
+    max7219.print(0, 0, "#..............#", 0);
+    max7219.print(0, 3, "........#.......", 0);
+    max7219.update();
+    assertEquals(List.of("01800101", "00000480"), spi.messages); // module 0 first, no-op for unchanged module
+    assertEquals(1, spi.writes); // whole frame in one call
+    max7219.close();
+    assertFalse(spi.open);
+  }
+
+}
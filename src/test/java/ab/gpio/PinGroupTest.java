@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2025 Aleksei Balan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ab.gpio;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PinGroupTest {
+
+  @Test
+  void set() {
+    int[] writes = new int[1];
+    TestPin p0 = new TestPin(writes).open();
+    TestPin p1 = new TestPin(writes).open();
+    TestPin p2 = new TestPin(writes).open();
+    PinGroup group = Pin.group(p0, p1, p2);
+    group.set(0b101);
+    assertEquals(3, writes[0]);
+    assertTrue(p0.value);
+    assertFalse(p1.value);
+    assertTrue(p2.value);
+    group.set(0b011, 0b110);
+    assertEquals(5, writes[0]); // p2 is not in mask
+    assertFalse(p0.value);
+    assertTrue(p1.value);
+    assertTrue(p2.value);
+    group.set(0b111, 0b100);
+    assertEquals(6, writes[0]); // only p1 changed
+    assertEquals(0b100, group.get());
+    group.invalidate();
+    group.set(0b100);
+    assertEquals(9, writes[0]);
+  }
+
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2025 Aleksei Balan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ab.gpio;
+
+import com.diozero.internal.provider.builtin.gpio.GpioLineEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PinTest {
+
+  @Test
+  void lazyChip() {
+    Pin pin = new Pin(Integer.MAX_VALUE, 0); // no chip is opened before open()
+    assertThrows(IllegalStateException.class, () -> pin.setEdgeListener((value, nanos) -> {}));
+    assertThrows(RuntimeException.class, pin::open);
+    pin.close();
+    for (int id : Pin.openChips()) assertNotEquals(Integer.MAX_VALUE, id);
+  }
+
+  @Test
+  void event() {
+    List<String> edges = new ArrayList<>();
+    Pin pin = new Pin(0, 0, true).setEdgeListener((value, nanos) -> edges.add(value + "@" + nanos));
+    pin.event(new GpioLineEvent(3, 0x01, 1_000_000_007L)); // GPIOEVENT_EVENT_RISING_EDGE
+    pin.event(new GpioLineEvent(3, 0x02, 1_000_000_011L)); // GPIOEVENT_EVENT_FALLING_EDGE
+    assertEquals(List.of("true@1000000007", "false@1000000011"), edges);
+  }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2025 Aleksei Balan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ab.gpio;
+
+import ab.gpio.driver.BusyRunner;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PwmBankTest {
+
+  @Test
+  void run() {
+    int[] writes = new int[1];
+    TestPin[] pins = new TestPin[32];
+    for (int i = 0; i < pins.length; i++) pins[i] = new TestPin(writes);
+    int[] duty = new int[pins.length];
+    duty[0] = 255;
+    duty[1] = 128;
+    duty[2] = 64;
+    duty[3] = 17;
+    long unit = 1_000_000_000L / 100 / PwmBank.MAX;
+    // pins 0-3 in every time unit of a period, slot n of 2^n units has the bit n of duty
+    StringBuilder expected = new StringBuilder();
+    for (int b = 0; b < PwmBank.BITS; b++) {
+      int plane = 0;
+      for (int p = 0; p < 4; p++) plane |= (duty[p] >> b & 1) << p;
+      expected.append(Integer.toHexString(plane).repeat(1 << b));
+    }
+    StringBuilder planes = new StringBuilder();
+    int periodWrites;
+    try (PwmBank bank = new PwmBank(new BusyRunner(), 100, pins).open()) {
+      bank.setDutyCycle(duty);
+      long nanoTime = System.nanoTime();
+      for (int i = 0; i < PwmBank.MAX; i++) { // one time unit per run, the first run starts the slot 0
+        bank.run(nanoTime += unit);
+        int plane = 0;
+        for (int p = 0; p < 4; p++) if (pins[p].value) plane |= 1 << p;
+        planes.append(Integer.toHexString(plane));
+      }
+      periodWrites = writes[0];
+      for (int i = 0; i < 2 * PwmBank.MAX; i++) bank.run(nanoTime += unit);
+      periodWrites = (writes[0] - periodWrites) / 2;
+    }
+    assertEquals(expected.toString(), planes.toString());
+    // 255 and the other 28 pins never switch, 128 and 64 switch twice per period, 17 = 10001 four times
+    assertEquals(8, periodWrites);
+  }
+
+  @Test
+  void frequency() {
+    BusyRunner runner = new BusyRunner();
+    assertThrows(IllegalArgumentException.class, () -> new PwmBank(runner, 0, new TestPin()));
+    assertThrows(IllegalArgumentException.class, () -> new PwmBank(runner, 1_000_000_000 / PwmBank.MAX + 1));
+    assertEquals(1, new PwmBank(runner, 1_000_000_000 / PwmBank.MAX, new TestPin()).size());
+  }
+
+}
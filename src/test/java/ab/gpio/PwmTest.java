@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2025 Aleksei Balan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ab.gpio;
+
+import ab.gpio.driver.BusyRunnable;
+import ab.gpio.driver.BusyRunner;
+import ab.gpio.driver.SysfsPwm;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.*;
+
+class PwmTest {
+
+  @TempDir
+  Path root;
+
+  private static class Heavy implements BusyRunnable {
+    @Override
+    public void run() {
+      long nanoTime = System.nanoTime() + 50_000;
+      while (System.nanoTime() < nanoTime) ;
+    }
+
+    @Override
+    public Heavy open() {
+      return this;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+
+  private static double rate(int[] writes) throws InterruptedException {
+    int w = writes[0];
+    long nanoTime = System.nanoTime();
+    Thread.sleep(200);
+    return (writes[0] - w) * 1e9 / (System.nanoTime() - nanoTime);
+  }
+
+  @Test
+  void balance() throws InterruptedException {
+    assumeTrue(Runtime.getRuntime().availableProcessors() >= 4, "needs a core per thread");
+    int[] writes = new int[1];
+    try (BusyRunner runner = new BusyRunner(4).open();
+        Pwm pwm = new Pwm(new TestPin(writes), runner).open()) {
+      pwm.setDutyCycle(1, 2);
+      Thread.sleep(100);
+      double alone = rate(writes);
+      for (int i = 0; i < 3; i++) runner.add(new Heavy());
+      Thread.sleep(500); // rebalancing
+      double shared = rate(writes);
+      // on one thread with the heavy runnables the pwm would run less than 1/150us
+      assertTrue(shared > alone / 2, String.format("%.0f Hz alone, %.0f Hz shared", alone, shared));
+    }
+  }
+
+  @Test
+  void hardware() throws IOException {
+    Path pwm = Files.createDirectories(root.resolve("pwmchip0/pwm0"));
+    for (String attribute : new String[]{"period", "duty_cycle", "enable"}) {
+      Files.writeString(pwm.resolve(attribute), "0\n");
+    }
+    TestPin pin = new TestPin();
+    BusyRunner runner = new BusyRunner();
+    try (Pwm hardware = new Pwm(pin, runner, new SysfsPwm(root, 0, 0)).open()) {
+      assertTrue(hardware.isHardware());
+      assertFalse(pin.open);
+      hardware.setDutyCycle(1, 4);
+      assertEquals("250000", Files.readAllLines(pwm.resolve("duty_cycle")).get(0));
+      assertEquals("1000000", Files.readAllLines(pwm.resolve("period")).get(0));
+      assertEquals("1", Files.readAllLines(pwm.resolve("enable")).get(0));
+    }
+    try (Pwm soft = new Pwm(pin, runner, new SysfsPwm(root, 0, 1)).open()) {
+      assertFalse(soft.isHardware());
+      assertTrue(pin.open);
+    }
+  }
+
+  @Test
+  void failedOpen() throws IOException {
+    Path chip = Files.createDirectories(root.resolve("pwmchip0/export")).getParent(); // export can not be written
+    Files.writeString(chip.resolve("npwm"), "1\n");
+    Pwm pwm = new Pwm(new TestPin(), new BusyRunner(), new SysfsPwm(root, 0, 0));
+    assertThrows(UncheckedIOException.class, pwm::open);
+    assertThrows(UncheckedIOException.class, pwm::open); // not left open
+    assertFalse(pwm.isHardware());
+  }
+
+  @Test
+  void sigmaDelta() {
+    TestPin pin = new TestPin();
+    try (Pwm pwm = new Pwm(pin, new BusyRunner()).open()) {
+      pwm.setMode(Pwm.Mode.SIGMA_DELTA);
+      pwm.setDutyCycle(3, 8);
+      StringBuilder s = new StringBuilder();
+      for (int i = 0; i < 16; i++) {
+        pwm.run();
+        s.append(pin.value ? '#' : '.');
+      }
+      assertEquals("..#..#.#..#..#.#", s.toString());
+    }
+  }
+
+  @Test
+  void time() {
+    long[] now = new long[1];
+    List<Long> rising = new ArrayList<>();
+    List<Long> falling = new ArrayList<>();
+    TestPin pin = new TestPin() {
+      @Override
+      public void set(boolean v) {
+        super.set(v);
+        (v ? rising : falling).add(now[0]);
+      }
+    };
+    try (Pwm pwm = new Pwm(pin, new BusyRunner()).open()) {
+      pwm.setMode(Pwm.Mode.TIME);
+      pwm.setFrequency(100);
+      pwm.setDutyCycle(1, 4);
+      for (now[0] = System.nanoTime(); rising.size() < 12; now[0] += 10_000) pwm.run(now[0]);
+    }
+    // the first period started at open(), before the first run
+    long high = 0;
+    int first = falling.get(0) < rising.get(1) ? 1 : 0; // falling edge that ends the second high time
+    for (int i = 0; i < 10; i++) high += falling.get(first + i) - rising.get(1 + i);
+    long period = rising.get(11) - rising.get(1);
+    assertEquals(100_000_000, period, 20_000); // 10 periods of 10 ms
+    assertEquals(0.25, (double) high / period, 0.001);
+  }
+
+}
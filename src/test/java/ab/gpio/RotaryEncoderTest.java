@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2025 Aleksei Balan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ab.gpio;
+
+import ab.gpio.driver.BusyRunner;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RotaryEncoderTest {
+
+  private static final int[] CLOCKWISE = {0b01, 0b00, 0b10, 0b11};
+  private static final int[] COUNTERCLOCKWISE = {0b10, 0b00, 0b01, 0b11};
+
+  private final TestPin clk = new TestPin(new int[1], true);
+  private final TestPin dt = new TestPin(new int[1], true);
+  private final TestPin sw = new TestPin(new int[1], true);
+  private final AtomicInteger right = new AtomicInteger();
+  private final AtomicInteger left = new AtomicInteger();
+
+  private RotaryEncoder open(boolean events) {
+    clk.value = true;
+    dt.value = true;
+    sw.value = true;
+    RotaryEncoder encoder = (events ? new RotaryEncoder(clk, dt, sw) : new RotaryEncoder(clk, dt, sw, new BusyRunner()))
+        .open();
+    encoder.setKeyListener(s -> {
+      if (s.equals("Right")) right.incrementAndGet();
+      if (s.equals("Left")) left.incrementAndGet();
+    });
+    return encoder;
+  }
+
+  private void scan(RotaryEncoder encoder, int state) {
+    clk.value = (state & 2) != 0;
+    dt.value = (state & 1) != 0;
+    encoder.run();
+  }
+
+  private static void await(AtomicInteger counter, int value) throws InterruptedException {
+    for (int i = 0; i < 1000 && counter.get() < value; i++) Thread.sleep(1);
+  }
+
+  @Test
+  void decode() throws InterruptedException {
+    RotaryEncoder encoder = open(false);
+    for (int state : CLOCKWISE) scan(encoder, state);
+    await(right, 1);
+    assertEquals(1, right.get());
+    // bounce on every edge
+    int previous = 0b11;
+    for (int state : COUNTERCLOCKWISE) {
+      scan(encoder, state);
+      scan(encoder, previous);
+      scan(encoder, state);
+      previous = state;
+    }
+    // 01 missed: 11 to 00 is rejected, half detent is enough
+    scan(encoder, 0b00);
+    scan(encoder, 0b10);
+    scan(encoder, 0b11);
+    await(right, 2);
+    await(left, 1);
+    encoder.close();
+    assertEquals(2, right.get());
+    assertEquals(1, left.get());
+    assertEquals(1, encoder.getInvalid());
+  }
+
+  /**
+   * Edges at 20 kHz from another thread, as the kernel reports them in event mode. Polling mode follows only
+   * the states that last at least one scan period.
+   */
+  @Test
+  void stress() throws InterruptedException {
+    RotaryEncoder encoder = open(true);
+    int detents = 2000;
+    long period = 50_000;
+    Thread edges = new Thread(() -> {
+      int state = 0b11;
+      long deadline = System.nanoTime();
+      for (int i = 0; i < detents; i++) {
+        for (int next : i < detents / 2 ? CLOCKWISE : COUNTERCLOCKWISE) {
+          while (System.nanoTime() < deadline) Thread.onSpinWait();
+          deadline += period;
+          if ((state ^ next) == 2) clk.fire((next & 2) != 0); else dt.fire((next & 1) != 0);
+          state = next;
+        }
+      }
+    });
+    edges.start();
+    edges.join();
+    await(left, detents / 2);
+    encoder.close();
+    assertEquals(detents / 2, right.get());
+    assertEquals(detents / 2, left.get());
+    assertEquals(0, encoder.getOverflow());
+    assertEquals(0, encoder.getInvalid());
+  }
+
+  @Test
+  void reopen() throws InterruptedException {
+    RotaryEncoder encoder = open(false);
+    encoder.close();
+    encoder.open();
+    for (int state : CLOCKWISE) scan(encoder, state);
+    await(right, 1);
+    encoder.close();
+    encoder.close();
+    assertEquals(1, right.get());
+  }
+
+  @Test
+  void acceleration() throws InterruptedException {
+    RotaryEncoder encoder = open(false);
+    encoder.setAcceleration(100, 5);
+    for (int i = 0; i < 10; i++) for (int state : CLOCKWISE) scan(encoder, state);
+    await(right, 46);
+    encoder.close();
+    assertEquals(1 + 9 * 5, right.get()); // first detent is not accelerated
+  }
+
+  @Test
+  void events() throws InterruptedException {
+    RotaryEncoder encoder = open(true);
+    int[] keys = new int[2];
+    AtomicInteger released = new AtomicInteger();
+    encoder.setKeyListener(s -> {
+      if (s.equals("1")) keys[0]++;
+      if (s.equals("+")) keys[1]++;
+      if (s.equals("Right")) right.incrementAndGet();
+      if (s.equals("0")) released.incrementAndGet();
+    });
+    int state = 0b11;
+    for (int i = 0; i < 3; i++) {
+      for (int next : CLOCKWISE) {
+        if ((state ^ next) == 2) clk.fire((next & 2) != 0); else dt.fire((next & 1) != 0);
+        state = next;
+      }
+      if (i == 0) sw.fire(false);
+    }
+    sw.fire(true);
+    await(released, 1);
+    encoder.close();
+    assertEquals(1, right.get());
+    assertEquals(1, keys[0]);
+    assertEquals(2, keys[1]);
+    assertEquals(1, released.get());
+  }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2025 Aleksei Balan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ab.gpio;
+
+/**
+ * Pin without hardware, counts the line writes. Input value is set by test, edges are fired by test.
+ */
+class TestPin extends Pin {
+  private final int[] writes;
+  boolean value;
+  boolean open;
+
+  TestPin(int[] writes, boolean readOnly) {
+    super(0, 0, readOnly);
+    this.writes = writes;
+  }
+
+  TestPin(int[] writes) {
+    this(writes, false);
+  }
+
+  TestPin() {
+    this(new int[1]);
+  }
+
+  void fire(boolean v) {
+    value = v;
+    edge(v, System.nanoTime());
+  }
+
+  int writes() {
+    return writes[0];
+  }
+
+  @Override
+  public TestPin open() {
+    open = true;
+    return this;
+  }
+
+  @Override
+  public void close() {
+    open = false;
+  }
+
+  @Override
+  public void set(boolean v) {
+    if (!open) throw new IllegalStateException("closed");
+    writes[0]++;
+    value = v;
+  }
+
+  @Override
+  public boolean get() {
+    return value;
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2025 Aleksei Balan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ab.gpio;
+
+import ab.gpio.driver.Waveform;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks a waveform capture of a serial bus against the timing constants of the driver and measures the bit rate.
+ * The bus has an active low chip select, data is sampled on the rising clock.
+ */
+class TimingCheck {
+  private static final int MAX_REPORTED = 10;
+  private static final long NEVER_NS = 1L << 40;
+  private final List<String> violations = new ArrayList<>();
+  private long count;
+  private long bits;
+  private long selectedNanos;
+
+  private TimingCheck() {
+  }
+
+  public static TimingCheck max7219(Waveform waveform, int din, int cs, int clk) {
+    TimingCheck check = new TimingCheck();
+    check.scan(waveform, cs, clk, din, Max7219.T_CSS_NS, Max7219.T_CL_NS, Max7219.T_CH_NS, Max7219.T_DS_NS,
+        Max7219.T_DH_NS, Max7219.T_CSH_NS, Max7219.T_CSW_NS, Max7219.T_LDCK_NS);
+    return check;
+  }
+
+  /**
+   * Data is written on the falling clock, so the clock pulse width is also the data setup and hold time.
+   */
+  public static TimingCheck tm1638(Waveform waveform, int stb, int clk, int dio) {
+    TimingCheck check = new TimingCheck();
+    int t = Tm1638.PWCLK_NS;
+    check.scan(waveform, stb, clk, dio, t, t, t, t, t, t, t, t);
+    return check;
+  }
+
+  private void scan(Waveform waveform, int cs, int clk, int data,
+      int tCss, int tCl, int tCh, int tDs, int tDh, int tCsh, int tCsw, int tLdck) {
+    if (waveform.size() == 0) return;
+    long never = waveform.getNanos(0) - NEVER_NS; // edges before the capture
+    long csFall = never;
+    long csRise = never;
+    long clkFall = never;
+    long clkRise = never;
+    long dataChange = never;
+    boolean selected = false;
+    boolean first = false;
+    boolean loaded = false;
+    for (int i = 0; i < waveform.size(); i++) {
+      long t = waveform.getNanos(i);
+      int line = waveform.getLine(i);
+      boolean value = waveform.getValue(i);
+      if (line == clk && value) {
+        if (selected) {
+          if (first) check("T_CSS", i, t - csFall, tCss);
+          check("T_CL", i, t - clkFall, tCl);
+          if (dataChange > clkRise) check("T_DS", i, t - dataChange, tDs);
+          first = false;
+          bits++;
+        }
+        if (loaded) check("T_LDCK", i, t - csRise, tLdck);
+        loaded = false;
+        clkRise = t;
+      } else if (line == clk) {
+        check("T_CH", i, t - clkRise, tCh);
+        clkFall = t;
+      } else if (line == data) {
+        if (selected && dataChange < clkRise) check("T_DH", i, t - clkRise, tDh);
+        dataChange = t;
+      } else if (line == cs && !value) {
+        check("T_CSW", i, t - csRise, tCsw);
+        csFall = t;
+        selected = true;
+        first = true;
+      } else if (line == cs) {
+        if (!first) check("T_CSH", i, t - clkRise, tCsh);
+        if (selected) selectedNanos += t - csFall;
+        csRise = t;
+        selected = false;
+        loaded = true;
+      }
+    }
+  }
+
+  private void check(String name, int i, long nanos, int min) {
+    if (nanos >= min) return;
+    if (count++ < MAX_REPORTED) violations.add(String.format("%s %d ns < %d ns at transition %d", name, nanos, min, i));
+  }
+
+  public boolean isValid() {
+    return count == 0;
+  }
+
+  /**
+   * @return the first violations
+   */
+  public List<String> getViolations() {
+    return violations;
+  }
+
+  public long getViolationCount() {
+    return count;
+  }
+
+  public long getBits() {
+    return bits;
+  }
+
+  /**
+   * @return bits per second while the chip was selected
+   */
+  public double getBitRate() {
+    return selectedNanos == 0 ? 0 : bits * 1e9 / selectedNanos;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%d bits, %.0f bit/s, %d violations %s", bits, getBitRate(), count, violations);
+  }
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2025 Aleksei Balan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ab.gpio;
+
+import ab.gpio.driver.Waveform;
+import ab.gpio.driver.WaveformPin;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingCheckTest {
+
+  @Test
+  void max7219() {
+    Waveform waveform = new Waveform(100_000);
+    Max7219 max7219 = new Max7219(new WaveformPin(waveform, 0), new WaveformPin(waveform, 1),
+        new WaveformPin(waveform, 2)).open();
+    for (int y = 0; y < 8; y++) max7219.print(0, y, "#.#.#.#.#.#.#.#.#.#.#.#.#.#.#.#.", 1);
+    max7219.update();
+    max7219.close();
+    assertEquals(0, waveform.getOverflow());
+    TimingCheck check = TimingCheck.max7219(waveform, 0, 1, 2);
+    assertTrue(check.isValid(), check.toString());
+    assertEquals(max7219.getBitCount(), check.getBits());
+    assertTrue(check.getBitRate() > 0);
+  }
+
+  @Test
+  void tm1638() throws InterruptedException {
+    Waveform waveform = new Waveform(100_000);
+    Tm1638 tm1638 = new Tm1638(new WaveformPin(waveform, 0), new WaveformPin(waveform, 1),
+        new WaveformPin(waveform, 2)).open();
+    tm1638.setKeyListener(key -> {}); // key scans
+    tm1638.print(0, 0, "12345678", 1);
+    tm1638.update();
+    while (tm1638.getScanLatency().getCount() < 10) Thread.sleep(1);
+    tm1638.close();
+    TimingCheck check = TimingCheck.tm1638(waveform, 0, 1, 2);
+    assertTrue(check.isValid(), check.toString());
+    assertTrue(check.getBits() > 0);
+  }
+
+  @Test
+  void violation() {
+    Waveform waveform = new Waveform(10);
+    waveform.record(0, 1, false); // cs
+    waveform.record(10, 0, true); // din, too close to the clock
+    waveform.record(30, 2, true); // clk
+    waveform.record(40, 2, false); // clk high too short
+    waveform.record(200, 1, true);
+    TimingCheck check = TimingCheck.max7219(waveform, 0, 1, 2);
+    assertFalse(check.isValid());
+    assertEquals(2, check.getViolationCount());
+    assertTrue(check.getViolations().get(0).startsWith("T_DS 20 ns"), check.toString());
+    assertTrue(check.getViolations().get(1).startsWith("T_CH 10 ns"), check.toString());
+    assertEquals(1, check.getBits());
+  }
+
+}
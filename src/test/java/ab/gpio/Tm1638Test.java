@@ -17,8 +17,14 @@
 
 package ab.gpio;
 
+import ab.gpio.driver.LatencyRecorder;
+import ab.gpio.driver.Waveform;
+import ab.gpio.driver.WaveformPin;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class Tm1638Test {
@@ -32,4 +38,178 @@ class Tm1638Test {
     assertArrayEquals(new byte[]{0, 2, 4, 8, 0x3F, 0x5B, 0x66, (byte) 0xFF}, tm1638.digit);
   }
 
+  private static double writesPerScan(Tm1638 tm1638, int[] writes) throws InterruptedException {
+    LatencyRecorder latency = tm1638.getScanLatency();
+    long frames = latency.getCount();
+    while (latency.getCount() == frames) Thread.sleep(1);
+    int w = writes[0];
+    frames = latency.getCount();
+    while (latency.getCount() - frames < 50) Thread.sleep(1);
+    return (double) (writes[0] - w) / (latency.getCount() - frames);
+  }
+
+  @Test
+  void refresh() throws InterruptedException {
+    int[] writes = new int[1];
+    Tm1638 tm1638 = new Tm1638(new TestPin(writes), new TestPin(writes), new TestPin(writes)).open();
+    tm1638.setScanRate(1000);
+    tm1638.setKeyListener(key -> {}); // idle, only keys are scanned
+    double idle = writesPerScan(tm1638, writes);
+    tm1638.close();
+    // a full display write is 18 bytes, 144 bits with 2 or 3 line writes per bit, the rest is key scan
+    assertTrue(idle < 144, "line writes per idle scan: " + idle);
+  }
+
+  @Test
+  void rates() throws InterruptedException {
+    Tm1638 tm1638 = new Tm1638(new TestPin(), new TestPin(), new TestPin()).open();
+    tm1638.setRefreshRate(50);
+    tm1638.setScanRate(200);
+    tm1638.setKeyListener(key -> {});
+    LatencyRecorder latency = tm1638.getLatency();
+    LatencyRecorder scanLatency = tm1638.getScanLatency();
+    Thread.sleep(20);
+    long frames = latency.getCount();
+    long scans = scanLatency.getCount();
+    long nanoTime = System.nanoTime();
+    for (int i = 0; System.nanoTime() - nanoTime < 200_000_000; i++) {
+      tm1638.print(0, 0, Integer.toString(i), 1);
+      tm1638.update();
+    }
+    frames = latency.getCount() - frames;
+    scans = scanLatency.getCount() - scans;
+    long time = System.nanoTime() - nanoTime;
+    tm1638.close();
+    // the deadlines limit the rates, plus one frame or scan that was due before and recorded after the start
+    assertTrue(frames > 0 && frames <= time / 20_000_000 + 2, "frames " + frames + " in " + time + " ns");
+    assertTrue(scans > 0 && scans <= time / 5_000_000 + 2, "scans " + scans + " in " + time + " ns");
+  }
+
+  @Test
+  void park() throws InterruptedException {
+    int[] writes = new int[1];
+    Tm1638 tm1638 = new Tm1638(new TestPin(writes), new TestPin(writes), new TestPin(writes)).open();
+    LatencyRecorder latency = tm1638.getLatency();
+    while (latency.getCount() == 0) Thread.sleep(1); // first frame
+    Thread.sleep(20);
+    long frames = latency.getCount();
+    int w = writes[0];
+    Thread.sleep(50);
+    assertEquals(frames, latency.getCount()); // parked, nothing to send
+    assertEquals(w, writes[0]);
+    tm1638.print(0, 0, "8", 1);
+    tm1638.update();
+    while (latency.getCount() == frames) Thread.sleep(1);
+    assertTrue(writes[0] > w);
+    tm1638.close();
+  }
+
+  @Test
+  void dispatch() throws InterruptedException {
+    boolean[] pressed = new boolean[1];
+    TestPin dio = new TestPin() {
+      @Override
+      public boolean get() {
+        return pressed[0];
+      }
+    };
+    Tm1638 tm1638 = new Tm1638(new TestPin(), new TestPin(), dio).open();
+    tm1638.setRefreshRate(0);
+    tm1638.setScanRate(1000);
+    List<String> keys = new ArrayList<>();
+    long[] keyLatency = new long[1];
+    tm1638.setKeyListener(key -> {
+      synchronized (keys) {
+        keys.add(key);
+        keyLatency[0] = Math.max(keyLatency[0], System.nanoTime() - tm1638.getKeyTime());
+      }
+      try {
+        Thread.sleep(50); // slow listener
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    Thread.sleep(20);
+    tm1638.getLatency().interval();
+    tm1638.getScanLatency().interval();
+    long end = System.nanoTime() + 200_000_000;
+    for (int i = 0; System.nanoTime() < end; i++) {
+      pressed[0] = (i & 1) == 0; // all 8 keys change
+      tm1638.print(0, 0, Integer.toString(i), 1);
+      tm1638.update();
+      Thread.sleep(5);
+    }
+    LatencyRecorder.Interval frame = tm1638.getLatency().interval();
+    LatencyRecorder.Interval scan = tm1638.getScanLatency().interval();
+    long close = System.nanoTime();
+    tm1638.close(); // does not wait for the queued events
+    close = System.nanoTime() - close;
+    // inline dispatch would make every frame with a key change last 8 or 16 listener calls
+    assertTrue(frame.getCount() > 10, "frames " + frame);
+    assertTrue(frame.getMax() < 50_000_000, "frame ns " + frame);
+    assertTrue(scan.getMax() < 50_000_000, "scan latency ns " + scan);
+    assertTrue(tm1638.getOverflow() > 0, "key events lost " + tm1638.getOverflow());
+    assertTrue(close < 1_000_000_000, "close ns " + close);
+    synchronized (keys) {
+      assertEquals(List.of("+1", "1"), keys.subList(0, 2));
+      assertTrue(keyLatency[0] > 0 && keyLatency[0] < 10_000_000_000L, "key latency ns " + keyLatency[0]);
+    }
+  }
+
+  /**
+   * Decodes the bus commands and checks the display memory at the start of every frame.
+   * @return number of frames
+   */
+  private static int checkFrames(Waveform waveform, int a, int b) {
+    int[] memory = new int[16];
+    List<Integer> command = new ArrayList<>();
+    boolean selected = false;
+    boolean data = false;
+    int bit = 0;
+    int word = 0;
+    int frames = 0;
+    for (int i = 0; i < waveform.size(); i++) {
+      int line = waveform.getLine(i);
+      boolean value = waveform.getValue(i);
+      if (line == 2) data = value;
+      if (line == 1 && value && selected) {
+        word |= (data ? 1 : 0) << bit++;
+        if (bit == 8) {
+          command.add(word);
+          bit = 0;
+          word = 0;
+        }
+      }
+      if (line != 0) continue;
+      selected = !value;
+      if (selected || command.isEmpty()) continue;
+      int c = command.get(0);
+      if (c == 0x40 || c == 0x44) {
+        frames++;
+        for (int j = 2; j < 16; j += 2) assertEquals(memory[0], memory[j], "torn frame " + frames);
+        assertTrue(memory[0] == 0 || memory[0] == a || memory[0] == b);
+      }
+      if ((c & 0xF0) == 0xC0) for (int j = 1; j < command.size(); j++) memory[(c & 0xF) + j - 1] = command.get(j);
+      command.clear();
+    }
+    return frames;
+  }
+
+  @Test
+  void tear() {
+    // frames alternate all digits 0 and all digits 8, a torn frame has both
+    Waveform waveform = new Waveform(1 << 20);
+    Tm1638 tm1638 = new Tm1638(new WaveformPin(waveform, 0), new WaveformPin(waveform, 1),
+        new WaveformPin(waveform, 2)).open();
+    long end = System.nanoTime() + 50_000_000;
+    for (int i = 0; System.nanoTime() < end; i++) {
+      tm1638.print(0, 0, i % 2 == 0 ? "00000000" : "88888888", 1);
+      tm1638.update();
+    }
+    tm1638.close();
+    assertEquals(0, waveform.getOverflow());
+    int frames = checkFrames(waveform, Tm1638.to7('0'), Tm1638.to7('8'));
+    assertTrue(frames > 2, "frames " + frames);
+  }
+
 }
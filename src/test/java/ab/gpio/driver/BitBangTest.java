@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2025 Aleksei Balan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ab.gpio.driver;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BitBangTest {
+
+  private static final int CS = 0;
+  private static final int CLK = 1;
+  private static final int DATA = 2;
+
+  /**
+   * @return data bits sampled on the rising clock while selected
+   */
+  private static String bits(Waveform waveform) {
+    StringBuilder s = new StringBuilder();
+    boolean selected = false;
+    boolean data = false;
+    for (int i = 0; i < waveform.size(); i++) {
+      int line = waveform.getLine(i);
+      boolean value = waveform.getValue(i);
+      if (line == CS) {
+        selected = !value;
+        if (selected && s.length() > 0) s.append('|');
+      }
+      if (line == DATA) data = value;
+      if (line == CLK && value && selected) s.append(data ? '1' : '0');
+    }
+    return s.toString();
+  }
+
+  @Test
+  void write() {
+    Waveform waveform = new Waveform(1000);
+    BitBang msb = new BitBang(new WaveformPin(waveform, CS), new WaveformPin(waveform, CLK),
+        new WaveformPin(waveform, DATA), 8, false, false).open();
+    msb.select().write(0xA1).write(0x0F).deselect().select().write(0x80).deselect();
+    int steps = msb.size();
+    waveform.clear();
+    msb.run();
+    assertEquals(0, msb.size());
+    assertEquals("1010000100001111|10000000", bits(waveform));
+    msb.close();
+
+    waveform.clear();
+    BitBang lsb = new BitBang(new WaveformPin(waveform, CS), new WaveformPin(waveform, CLK),
+        new WaveformPin(waveform, DATA), 4, true, true).open();
+    waveform.clear();
+    lsb.select().write(0x1).deselect();
+    assertTrue(lsb.size() < steps);
+    lsb.run();
+    assertEquals("1000", bits(waveform));
+    assertEquals(CS, waveform.getLine(waveform.size() - 1));
+    lsb.close();
+  }
+
+  @Test
+  void read() {
+    Waveform waveform = new Waveform(1000);
+    WaveformPin data = new WaveformPin(waveform, DATA);
+    BitBang bus = new BitBang(new WaveformPin(waveform, CS), new WaveformPin(waveform, CLK), data, 8, true, true)
+        .open();
+    int[] input = {0, 0, 7};
+    bus.select().write(0x42).read(2).deselect().run(input);
+    assertArrayEquals(new int[]{0xFF, 0xFF, 7}, input); // released line is high
+    assertTrue(data.get());
+    bus.close();
+  }
+
+}
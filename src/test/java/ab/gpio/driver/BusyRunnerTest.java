@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2025 Aleksei Balan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ab.gpio.driver;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BusyRunnerTest {
+
+  private static class Counter implements BusyRunnable {
+    volatile int count;
+
+    @Override
+    public void run() {
+      count++;
+    }
+
+    @Override
+    public Counter open() {
+      return this;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+
+  @Test
+  void schedule() throws InterruptedException {
+    Counter always = new Counter();
+    Counter fast = new Counter();
+    Counter slow = new Counter();
+    long nanoTime = System.nanoTime();
+    try (BusyRunner runner = new BusyRunner().open()) {
+      runner.add(always);
+      runner.add(fast, 1_000_000);
+      runner.add(slow, 20_000_000);
+      Thread.sleep(200);
+    } // close() joins the thread, the counters are final
+    long time = System.nanoTime() - nanoTime;
+    // a task never runs more often than its deadlines, a busy machine can only make it run less often
+    assertTrue(fast.count <= time / 1_000_000 + 1, "fast " + fast.count + " in " + time + " ns");
+    assertTrue(slow.count <= time / 20_000_000 + 1, "slow " + slow.count + " in " + time + " ns");
+    assertTrue(slow.count > 0);
+    assertTrue(fast.count >= slow.count);
+    assertTrue(always.count >= fast.count);
+  }
+
+  @Test
+  void balance() {
+    long[] costs = {50, 10, 50, 50, 20, 1};
+    int[] assignment = BusyRunner.balance(costs, 4);
+    long[] load = new long[4];
+    for (int i = 0; i < costs.length; i++) load[assignment[i]] += costs[i];
+    assertArrayEquals(new long[]{50, 50, 50, 31}, load);
+    assertEquals(assignment[1], assignment[5]);
+  }
+
+  @Test
+  void statistics() throws InterruptedException {
+    Counter always = new Counter();
+    Counter slow = new Counter();
+    BusyRunner.Snapshot snapshot;
+    long time;
+    try (BusyRunner runner = new BusyRunner().open()) {
+      runner.add(always);
+      runner.add(slow, 10_000_000);
+      snapshot = runner.snapshot(); // not enabled yet
+      assertEquals(0.0, snapshot.loopsPerSecond[0]);
+      assertEquals(0, snapshot.runnables.get(0).runs);
+      long nanoTime = System.nanoTime();
+      runner.setStatistics(true);
+      Thread.sleep(200);
+      snapshot = runner.snapshot();
+      time = System.nanoTime() - nanoTime;
+    }
+    assertTrue(snapshot.loopsPerSecond[0] > 1000);
+    assertTrue(snapshot.period.getCount() > 200);
+    assertTrue(snapshot.period.getValueAtPercentile(50) <= snapshot.period.getValueAtPercentile(99.9));
+    assertEquals(2, snapshot.runnables.size());
+    assertSame(always, snapshot.runnables.get(0).runnable);
+    long runs = snapshot.runnables.get(1).runs;
+    assertTrue(snapshot.runnables.get(0).runs >= runs);
+    assertTrue(runs > 0 && runs <= time / 10_000_000 + 1, "runs " + runs + " in " + time + " ns");
+  }
+
+}
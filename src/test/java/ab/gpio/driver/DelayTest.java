@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2025 Aleksei Balan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ab.gpio.driver;
+
+import ab.gpio.Pin;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DelayTest {
+
+  @Test
+  void calibrate() {
+    Pin slow = new Pin(-1, 0) {
+      @Override
+      public Pin open() {
+        return this;
+      }
+
+      @Override
+      public void set(boolean v) {
+        Delay.spin(2000);
+      }
+
+      @Override
+      public boolean get() {
+        return false;
+      }
+    };
+    Delay delay = Delay.calibrate(slow);
+    assertTrue(delay.getSetCost() >= 1500, delay.toString());
+    assertTrue(delay.getGetCost() < delay.getSetCost(), delay.toString());
+    long nanoTime = System.nanoTime();
+    for (int i = 0; i < 1000; i++) delay.afterSet(500); // covered by the write
+    assertTrue(System.nanoTime() - nanoTime < 500_000);
+
+    delay = Delay.calibrate(new WaveformPin(new Waveform(1000), 0).open());
+    nanoTime = System.nanoTime();
+    delay.afterSet(10_000 + delay.getSetCost());
+    assertTrue(System.nanoTime() - nanoTime >= 10_000, delay.toString());
+  }
+
+}
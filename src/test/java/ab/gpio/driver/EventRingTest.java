@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2025 Aleksei Balan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ab.gpio.driver;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventRingTest {
+
+  @Test
+  void overflow() {
+    EventRing ring = new EventRing(3);
+    assertEquals(4, ring.capacity());
+    for (int i = 0; i < 4; i++) assertTrue(ring.offer(i, 100 + i));
+    assertFalse(ring.offer(4, 104));
+    assertEquals(1, ring.getOverflow());
+    assertTrue(ring.await());
+    assertEquals(0, ring.take());
+    assertEquals(100, ring.time());
+    assertTrue(ring.offer(5, 105));
+    for (int i : new int[]{1, 2, 3, 5}) assertEquals(i, ring.take());
+    assertEquals(105, ring.time());
+    assertTrue(ring.isEmpty());
+    ring.close();
+    assertFalse(ring.await());
+    ring.reset();
+    ring.offer(6, 106);
+    assertTrue(ring.await());
+  }
+
+  @Test
+  void threads() throws InterruptedException {
+    EventRing ring = new EventRing(64);
+    int n = 1_000_000;
+    long[] sum = new long[1];
+    Thread consumer = new Thread(() -> {
+      while (ring.await()) sum[0] += ring.take();
+    });
+    consumer.start();
+    long dropped = 0;
+    for (int i = 1; i <= n; i++) {
+      while (!ring.offer(i, i)) dropped++;
+    }
+    while (!ring.isEmpty()) Thread.sleep(1);
+    ring.close();
+    consumer.join();
+    assertEquals((long) n * (n + 1) / 2, sum[0]);
+    assertEquals(dropped, ring.getOverflow());
+  }
+
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2025 Aleksei Balan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ab.gpio.driver;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistogramTest {
+
+  @Test
+  void percentile() {
+    Histogram histogram = new Histogram();
+    for (int i = 1; i <= 1000; i++) histogram.record(i * 1000);
+    assertEquals(1000, histogram.getCount());
+    assertEquals(1000, histogram.getMin());
+    assertEquals(1_000_000, histogram.getMax());
+    assertEquals(500_500, histogram.getMean(), 0.5);
+    assertEquals(500_000, histogram.getValueAtPercentile(50), 500_000 / 16);
+    assertEquals(990_000, histogram.getValueAtPercentile(99), 990_000 / 16);
+    assertEquals(1_000_000, histogram.getValueAtPercentile(100));
+    for (long v = 0; v < 1L << 40; v = v * 3 / 2 + 1) {
+      int index = Histogram.index(v);
+      assertTrue(v <= Histogram.highest(index));
+      assertTrue(index == 0 || v > Histogram.highest(index - 1));
+    }
+  }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2025 Aleksei Balan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ab.gpio.driver;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyRecorderTest {
+
+  @Test
+  void interval() throws InterruptedException {
+    LatencyRecorder recorder = new LatencyRecorder();
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      threads[t] = new Thread(() -> {
+        for (int i = 1; i <= 1000; i++) recorder.record(i);
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) thread.join();
+    LatencyRecorder.Interval interval = recorder.interval();
+    assertEquals(4000, interval.getCount());
+    assertEquals(4000, recorder.getCount());
+    assertEquals(1, interval.getMin());
+    assertEquals(1000, interval.getMax());
+    assertEquals(500.5, interval.getMean(), 0.01);
+    assertEquals(1000, interval.getValueAtPercentile(100));
+    assertTrue(interval.getRate() > 0);
+    recorder.record(7);
+    interval = recorder.interval();
+    assertEquals(1, interval.getCount());
+    assertEquals(7, interval.getValueAtPercentile(50));
+    assertEquals(4001, recorder.getCount());
+  }
+
+  @Test
+  void consistent() throws InterruptedException {
+    LatencyRecorder recorder = new LatencyRecorder();
+    Thread[] threads = new Thread[2];
+    for (int t = 0; t < threads.length; t++) {
+      threads[t] = new Thread(() -> {
+        for (int i = 0; i < 200_000; i++) recorder.record(5);
+      });
+      threads[t].start();
+    }
+    long count = 0;
+    while (threads[0].isAlive() || threads[1].isAlive()) {
+      LatencyRecorder.Interval interval = recorder.interval();
+      if (interval.getCount() == 0) continue; // sum, min and max must belong to the same values as the count
+      assertEquals(5, interval.getMean(), 0.001);
+      assertEquals(5, interval.getMin());
+      assertEquals(5, interval.getMax());
+      count += interval.getCount();
+    }
+    for (Thread thread : threads) thread.join();
+    count += recorder.interval().getCount();
+    assertEquals(400_000, count);
+  }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2025 Aleksei Balan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ab.gpio.driver;
+
+import ab.gpio.Pin;
+import ab.gpio.PinGroup;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MemoryPinTest {
+
+  @TempDir
+  Path tempDir;
+
+  private static int read(Path path, int register) throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+    return buffer.getInt(register);
+  }
+
+  private static void write(Path path, int register, int value) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(0, value), register);
+    }
+  }
+
+  @Test
+  void pin() throws IOException {
+    Path gpiomem = Files.write(tempDir.resolve("gpiomem"), new byte[4096]);
+    try (GpioMemory memory = new GpioMemory(gpiomem, new Bcm283x()).open()) {
+      MemoryPin out = new MemoryPin(memory, 17).open();
+      MemoryPin in = new MemoryPin(memory, 40, true).open();
+      assertEquals(1 << 21, read(gpiomem, Bcm283x.GPFSEL0 + 4)); // line 17 is output
+      out.set(true);
+      assertEquals(1 << 17, read(gpiomem, Bcm283x.GPSET0));
+      out.set(false);
+      assertEquals(1 << 17, read(gpiomem, Bcm283x.GPCLR0));
+      assertThrows(IllegalStateException.class, () -> in.set(true));
+      assertFalse(in.get());
+      write(gpiomem, Bcm283x.GPLEV0 + 4, 1 << 8);
+      assertTrue(in.get());
+      out.close();
+      assertEquals(0, read(gpiomem, Bcm283x.GPFSEL0 + 4));
+    }
+  }
+
+  @Test
+  void group() throws IOException {
+    Path gpiomem = Files.write(tempDir.resolve("gpiomem"), new byte[4096]);
+    try (GpioMemory memory = new GpioMemory(gpiomem, new Bcm283x()).open()) {
+      PinGroup group = Pin.group(new MemoryPin(memory, 2).open(), new MemoryPin(memory, 3).open(),
+          new MemoryPin(memory, 4).open(), new MemoryPin(memory, 33).open());
+      group.set(0b1011);
+      assertEquals(1 << 2 | 1 << 3, read(gpiomem, Bcm283x.GPSET0));
+      assertEquals(1 << 4, read(gpiomem, Bcm283x.GPCLR0));
+      assertEquals(1 << 1, read(gpiomem, Bcm283x.GPSET0 + 4));
+      group.set(0b0110);
+      assertEquals(1 << 2, read(gpiomem, Bcm283x.GPCLR0));
+      assertEquals(1 << 4, read(gpiomem, Bcm283x.GPSET0));
+      assertEquals(1 << 1, read(gpiomem, Bcm283x.GPCLR0 + 4));
+    }
+  }
+
+}
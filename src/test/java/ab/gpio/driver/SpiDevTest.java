@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2025 Aleksei Balan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ab.gpio.driver;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpiDevTest {
+
+  @TempDir
+  Path dev;
+
+  @Test
+  void write() throws IOException {
+    Path path = Files.createFile(dev.resolve("spidev0.0"));
+    ByteBuffer buffer = ByteBuffer.allocateDirect(16);
+    try (SpiDev spi = new SpiDev(path).open()) {
+      buffer.putShort((short) 0x0102).putShort((short) 0x0304).putShort((short) 0x0506).flip();
+      spi.write(buffer, 4);
+      assertFalse(buffer.hasRemaining());
+      assertEquals(6, buffer.limit());
+    }
+    assertArrayEquals(new byte[]{1, 2, 3, 4, 5, 6}, Files.readAllBytes(path));
+    assertThrows(java.io.UncheckedIOException.class, () -> new SpiDev(dev.resolve("spidev0.1")).open());
+  }
+
+}
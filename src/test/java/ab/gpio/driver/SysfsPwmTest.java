@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2025 Aleksei Balan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ab.gpio.driver;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SysfsPwmTest {
+
+  @TempDir
+  Path root;
+
+  /**
+   * Kernel creates the channel directory on export, here it exists before.
+   */
+  static Path pwmchip(Path root) throws IOException {
+    Path chip = Files.createDirectories(root.resolve("pwmchip0"));
+    Files.writeString(chip.resolve("npwm"), "2\n");
+    Files.writeString(chip.resolve("export"), "");
+    Files.writeString(chip.resolve("unexport"), "");
+    Path pwm = Files.createDirectories(chip.resolve("pwm1"));
+    for (String attribute : new String[]{"period", "duty_cycle", "enable"}) {
+      Files.writeString(pwm.resolve(attribute), "0\n");
+    }
+    return pwm;
+  }
+
+  static long read(Path path) throws IOException {
+    return Long.parseLong(Files.readAllLines(path).get(0));
+  }
+
+  @Test
+  void pwm() throws IOException {
+    Path pwm = pwmchip(root);
+    assertFalse(new SysfsPwm(root, 1, 0).isPresent());
+    assertTrue(new SysfsPwm(root, 0, 0).isPresent());
+    try (SysfsPwm sysfsPwm = new SysfsPwm(root, 0, 1).open()) {
+      sysfsPwm.setPeriod(20_000_000);
+      sysfsPwm.setDutyCycle(1_500_000);
+      sysfsPwm.setEnabled(true);
+      assertEquals(20_000_000, read(pwm.resolve("period")));
+      assertEquals(1_500_000, read(pwm.resolve("duty_cycle")));
+      assertEquals(1, read(pwm.resolve("enable")));
+      sysfsPwm.setPeriod(1_000_000);
+      assertEquals(1_000_000, read(pwm.resolve("duty_cycle")));
+      assertEquals(1_000_000, read(pwm.resolve("period")));
+    }
+    assertEquals(0, read(pwm.resolve("enable")));
+  }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2025 Aleksei Balan
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package ab.gpio.driver;
+
+import ab.gpio.Pin;
+import ab.gpio.PinGroup;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WaveformTest {
+
+  @Test
+  void record() {
+    Waveform waveform = new Waveform(2);
+    waveform.record(10, 3, true);
+    waveform.record(20, 1, false);
+    waveform.record(30, 2, true);
+    assertEquals(2, waveform.size());
+    assertEquals(1, waveform.getOverflow());
+    assertEquals(10, waveform.getNanos(0));
+    assertEquals(3, waveform.getLine(0));
+    assertTrue(waveform.getValue(0));
+    assertEquals(1, waveform.getLine(1));
+    assertFalse(waveform.getValue(1));
+    assertThrows(IndexOutOfBoundsException.class, () -> waveform.getNanos(2));
+    waveform.clear();
+    assertEquals(0, waveform.size());
+  }
+
+  @Test
+  void pin() {
+    Waveform waveform = new Waveform(100);
+    WaveformPin a = new WaveformPin(waveform, 0).open();
+    WaveformPin b = new WaveformPin(waveform, 1).open();
+    WaveformPin input = new WaveformPin(waveform, 2, true).open();
+    assertEquals(3, waveform.size()); // initial values
+    a.set(false);
+    a.set(true);
+    a.set(true);
+    assertEquals(4, waveform.size()); // transitions only
+    boolean[] edge = new boolean[1];
+    input.setEdgeListener((value, nanos) -> edge[0] = value);
+    input.drive(true);
+    assertTrue(input.get());
+    assertTrue(edge[0]);
+    assertThrows(IllegalStateException.class, () -> input.set(false));
+    waveform.clear();
+    PinGroup group = Pin.group(a, b);
+    group.set(0b10);
+    assertEquals(2, waveform.size());
+    assertEquals(waveform.getNanos(0), waveform.getNanos(1)); // one write
+    assertEquals(0, waveform.getLine(0));
+    assertEquals(1, waveform.getLine(1));
+  }
+
+}